@@ -0,0 +1,9 @@
+-- Agrega a una base existente las columnas de versión y fecha de última
+-- modificación de EmpresaEntity, usadas para el control de concurrencia
+-- optimista y los GET condicionales (ETag / Last-Modified).
+
+alter table EmpresaEntity add column version bigint;
+alter table EmpresaEntity add column lastModified timestamp;
+
+-- JPA compara la versión al actualizar, así que ninguna fila puede quedar sin versión.
+update EmpresaEntity set version = 1, lastModified = current_timestamp where version is null;
@@ -0,0 +1,7 @@
+-- Índices para los filtros de GET /empresas (ciudad, prefijo del nombre y rango
+-- del año de creación). EclipseLink los crea al generar el esquema; este script
+-- los agrega a una base existente.
+
+create index IDX_EMPRESA_CIUDAD on EmpresaEntity (ciudad, id);
+create index IDX_EMPRESA_EMPRESA on EmpresaEntity (empresa);
+create index IDX_EMPRESA_ANIOCREACION on EmpresaEntity (aniocreacion);
@@ -12,4 +12,12 @@ insert into EmpresaEntity (id, empresa,  image, aniocreacion, ciudad) values (30
 'Nantes');
 insert into EmpresaEntity (id, empresa,  image, aniocreacion, ciudad) values (400,'Proficient Rx LP', 
 'https://images.pexels.com/photos/1166657/pexels-photo-1166657.jpeg?auto=compress&cs=tinysrgb&h=350f', '4/8/1999',
-'Lomba');
\ No newline at end of file
+'Lomba');
+
+-- Los ids se generan con la tabla SEQUENCE. Se deja el contador en el mayor id
+-- existente para que los ids nuevos no choquen con los que se insertaron arriba.
+delete from SEQUENCE where SEQ_NAME = 'EMPRESA_SEQ';
+insert into SEQUENCE (SEQ_NAME, SEQ_COUNT) select 'EMPRESA_SEQ', max(id) from EmpresaEntity;
+
+-- Las empresas insertadas arriba no pasan por JPA: se les asigna la primera versión.
+update EmpresaEntity set version = 1, lastModified = current_timestamp where version is null;
@@ -0,0 +1,14 @@
+-- Migración de EmpresaEntity de ids IDENTITY a ids reservados por bloques desde
+-- la tabla SEQUENCE. Se ejecuta una sola vez sobre una base existente, antes de
+-- desplegar la versión que usa el generador EmpresaSeq.
+
+-- Si la tabla ya existe (por ejemplo porque la creó EclipseLink) se omite esta sentencia.
+create table SEQUENCE (SEQ_NAME varchar(50) not null, SEQ_COUNT decimal(15), primary key (SEQ_NAME));
+
+-- El contador arranca en el mayor id existente: EclipseLink le suma el tamaño
+-- del bloque antes de usarlo, así que los ids nuevos siempre son mayores.
+insert into SEQUENCE (SEQ_NAME, SEQ_COUNT) select 'EMPRESA_SEQ', coalesce(max(id), 0) from EmpresaEntity;
+
+-- Los ids ahora los asigna EclipseLink, así que la base debe aceptar valores explícitos.
+-- Los valores existentes no cambian.
+alter table EmpresaEntity alter column id set generated by default;
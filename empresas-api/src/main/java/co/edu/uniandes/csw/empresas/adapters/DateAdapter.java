@@ -23,46 +23,96 @@ SOFTWARE.
  */
 package co.edu.uniandes.csw.empresas.adapters;
 
-
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 
 /**
  * Clase adaptador que formatea las fechas en formato serialiable utilizando la
  * convención: yyyy-MM-dd. Ej: 2018-02-12
  *
+ * El formato se lee y se escribe a mano, carácter por carácter: no hay
+ * estado compartido, así que el adaptador se puede usar desde varios hilos, y
+ * no se crean objetos intermedios aparte de la fecha o el texto resultante.
+ * Las fechas con años fuera de 0000-9999 usan el formato ISO-8601 de
+ * {@link LocalDate}.
+ *
  * @author ISIS2603
  */
-public class DateAdapter extends XmlAdapter<String, Date> {
-    
-      private static final Logger LOGGER = Logger.getLogger(DateAdapter.class.getName());
+public class DateAdapter extends XmlAdapter<String, LocalDate> {
+
+    private static final int LENGTH = 10;
+
+    @Override
+    public LocalDate unmarshal(String v) throws Exception {
+        return parse(v);
+    }
+
+    @Override
+    public String marshal(LocalDate v) throws Exception {
+        return format(v);
+    }
 
     /**
-     * Thread safe {@link DateFormat}.
+     * Lee una fecha en formato yyyy-MM-dd.
+     *
+     * @param text texto a leer, o null.
+     * @return la fecha, o null si el texto es null.
+     * @throws java.time.DateTimeException si el texto no es una fecha válida.
      */
-    private static final ThreadLocal<DateFormat> DATE_FORMAT_TL = new ThreadLocal<DateFormat>() {
+    public static LocalDate parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() != LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            // Años de más de cuatro dígitos o con signo; LocalDate.parse también rechaza los textos inválidos.
+            return LocalDate.parse(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        return LocalDate.of(year, month, day);
+    }
 
-        @Override
-        protected DateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd");
+    /**
+     * Escribe una fecha en formato yyyy-MM-dd.
+     *
+     * @param date fecha a escribir, o null.
+     * @return el texto de la fecha, o null si la fecha es null.
+     */
+    public static String format(LocalDate date) {
+        if (date == null) {
+            return null;
+        }
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return date.toString();
         }
-    };
+        char[] chars = new char[LENGTH];
+        put(chars, 0, 4, year);
+        chars[4] = '-';
+        put(chars, 5, 7, date.getMonthValue());
+        chars[7] = '-';
+        put(chars, 8, 10, date.getDayOfMonth());
+        return new String(chars);
+    }
 
-    @Override
-    public Date unmarshal(String v) throws Exception {
-        LOGGER.log(Level.INFO, "input date "+v);
-        return DATE_FORMAT_TL.get().parse(v);
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeParseException("La fecha debe tener el formato yyyy-MM-dd", text, i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 
-    @Override
-    public String marshal(Date v) throws Exception {
-        if (v == null) {
-            return null;
+    private static void put(char[] chars, int start, int end, int value) {
+        for (int i = end - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
         }
-        return DATE_FORMAT_TL.get().format(v);
     }
 }
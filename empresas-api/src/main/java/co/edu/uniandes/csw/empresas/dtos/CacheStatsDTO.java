@@ -0,0 +1,158 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.dtos;
+
+import co.edu.uniandes.csw.empresas.cache.EmpresaCache;
+import java.io.Serializable;
+
+/**
+ * DTO con las estadísticas del caché de empresas.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo: <br>
+ * <pre>
+ *   {
+ *      "hits": number,
+ *      "misses": number,
+ *      "evictions": number,
+ *      "size": number,
+ *      "maxSize": number,
+ *      "ttlSeconds": number
+ *   }
+ * </pre>
+ *
+ * @author ISIS2603
+ */
+public class CacheStatsDTO implements Serializable {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+    private int maxSize;
+    private long ttlSeconds;
+
+    /**
+     * Constructor vacio
+     */
+    public CacheStatsDTO() {
+    }
+
+    /**
+     * Crea el DTO con el estado actual del caché.
+     *
+     * @param cache Caché del que se toman las estadísticas.
+     */
+    public CacheStatsDTO(EmpresaCache cache) {
+        this.hits = cache.getHits();
+        this.misses = cache.getMisses();
+        this.evictions = cache.getEvictions();
+        this.size = cache.getSize();
+        this.maxSize = cache.getMaxSize();
+        this.ttlSeconds = cache.getTtlMillis() / 1000;
+    }
+
+    /**
+     * @return the hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @param hits the hits to set
+     */
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @param misses the misses to set
+     */
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * @return the evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @param evictions the evictions to set
+     */
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    /**
+     * @return the size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size to set
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param maxSize the maxSize to set
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the ttlSeconds
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @param ttlSeconds the ttlSeconds to set
+     */
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
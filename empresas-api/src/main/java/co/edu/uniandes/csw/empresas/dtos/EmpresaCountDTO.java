@@ -0,0 +1,164 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.dtos;
+
+import java.io.Serializable;
+
+/**
+ * DTO con el número de empresas de una ciudad, de un año de creación o de un
+ * intervalo de años. Solo se escriben en el JSON los atributos del grupo que
+ * corresponde.
+ *
+ * Al serializarse como JSON esta clase implementa uno de los siguientes
+ * modelos: <br>
+ * <pre>
+ *   { "ciudad": string, "count": number }
+ *   { "anio": number, "count": number }
+ *   { "anioDesde": number, "anioHasta": number, "count": number }
+ * </pre>
+ *
+ * @author ISIS2603
+ */
+public class EmpresaCountDTO implements Serializable {
+
+    private String ciudad;
+    private Integer anio;
+    private Integer anioDesde;
+    private Integer anioHasta;
+    private long count;
+
+    /**
+     * Constructor vacio
+     */
+    public EmpresaCountDTO() {
+    }
+
+    /**
+     * @param ciudad Ciudad.
+     * @param count Número de empresas de la ciudad.
+     * @return el conteo de la ciudad.
+     */
+    public static EmpresaCountDTO ofCiudad(String ciudad, long count) {
+        EmpresaCountDTO dto = new EmpresaCountDTO();
+        dto.ciudad = ciudad;
+        dto.count = count;
+        return dto;
+    }
+
+    /**
+     * @param anio Año de creación.
+     * @param count Número de empresas creadas ese año.
+     * @return el conteo del año.
+     */
+    public static EmpresaCountDTO ofAnio(int anio, long count) {
+        EmpresaCountDTO dto = new EmpresaCountDTO();
+        dto.anio = anio;
+        dto.count = count;
+        return dto;
+    }
+
+    /**
+     * @param anioDesde Primer año del intervalo.
+     * @param anioHasta Último año del intervalo, incluido.
+     * @param count Número de empresas creadas en el intervalo.
+     * @return el conteo del intervalo.
+     */
+    public static EmpresaCountDTO ofIntervalo(int anioDesde, int anioHasta, long count) {
+        EmpresaCountDTO dto = new EmpresaCountDTO();
+        dto.anioDesde = anioDesde;
+        dto.anioHasta = anioHasta;
+        dto.count = count;
+        return dto;
+    }
+
+    /**
+     * @return the ciudad
+     */
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    /**
+     * @param ciudad the ciudad to set
+     */
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+
+    /**
+     * @return the anio
+     */
+    public Integer getAnio() {
+        return anio;
+    }
+
+    /**
+     * @param anio the anio to set
+     */
+    public void setAnio(Integer anio) {
+        this.anio = anio;
+    }
+
+    /**
+     * @return the anioDesde
+     */
+    public Integer getAnioDesde() {
+        return anioDesde;
+    }
+
+    /**
+     * @param anioDesde the anioDesde to set
+     */
+    public void setAnioDesde(Integer anioDesde) {
+        this.anioDesde = anioDesde;
+    }
+
+    /**
+     * @return the anioHasta
+     */
+    public Integer getAnioHasta() {
+        return anioHasta;
+    }
+
+    /**
+     * @param anioHasta the anioHasta to set
+     */
+    public void setAnioHasta(Integer anioHasta) {
+        this.anioHasta = anioHasta;
+    }
+
+    /**
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param count the count to set
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -25,11 +25,13 @@ package co.edu.uniandes.csw.empresas.dtos;
 
 import co.edu.uniandes.csw.empresas.adapters.DateAdapter;
 import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaField;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Date;
+import java.util.Set;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
-import org.apache.commons.lang3.builder.ToStringBuilder;
-import org.apache.commons.lang3.builder.ToStringStyle;
 
 /**
  * DTO Objeto de transferencia de datos de Autores. Los DTO contienen las
@@ -41,8 +43,10 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  *   {
  *      "id": number,
  *      "empresa": string,
- *      "birthDate": date,
- *      "image": string
+ *      "aniocreacion": date,
+ *      "image": string,
+ *      "version": number,
+ *      "lastModified": date
  *   }
  * </pre> Por ejemplo un autor se representa asi:<br>
  *
@@ -51,22 +55,42 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  *   {
  *      "id": 1,
  *      "empresa": "Gabriel García Márquez",
- *      "birthDate": "23091935",
- *      "image": "mifoto.com"
+ *      "aniocreacion": "1935-09-23",
+ *      "image": "empresas/1/image?v=9f86d081884c7d65...",
+ *      "version": 3,
+ *      "lastModified": "2018-05-02T10:15:30.000-05:00"
  *   }
  *
  * </pre>
  *
+ * Las imágenes del almacén de imágenes se exponen como la URL, relativa a la
+ * raíz del API, de <code>GET /empresas/{id}/image</code> con el hash de la
+ * imagen en el parámetro <code>v</code>. Al recibir esa misma URL se guarda de
+ * nuevo la referencia, así que un cliente puede devolver la empresa sin tocar
+ * la imagen.
+ *
  * @ ISIS2603
  */
 public class EmpresaDTO implements Serializable {
 
+    /**
+     * Número máximo de caracteres de un atributo de texto que se incluyen en
+     * {@link #toString()}.
+     */
+    private static final int TO_STRING_MAX_LENGTH = 64;
+
+    private static final String IMAGE_PATH_PREFIX = "empresas/";
+
+    private static final String IMAGE_PATH_SUFFIX = "/image?v=";
+
     private Long id;
     private String empresa;
     private String ciudad;
     private String image;
     @XmlJavaTypeAdapter(DateAdapter.class)
-    private Date aniocreacion;
+    private LocalDate aniocreacion;
+    private Long version;
+    private Date lastModified;
 
     /**
      * Constructor vacio
@@ -86,11 +110,32 @@ public class EmpresaDTO implements Serializable {
             this.empresa = entity.getEmpresa();
             this.aniocreacion = entity.getAniocreacion();
             this.ciudad = entity.getCiudad();
-            this.image = entity.getImage();
+            this.image = imageUrl(entity.getId(), entity.getImage());
+            this.version = entity.getVersion();
+            this.lastModified = entity.getLastModified();
 
         }
     }
 
+    /**
+     * Crea un objeto DTO con solo algunos atributos de un objeto Entity. Los
+     * demás quedan en null y no se escriben en el JSON.
+     *
+     * @param entity Entidad desde la cual se va a crear el nuevo objeto.
+     * @param fields Atributos que se copian.
+     */
+    public EmpresaDTO(EmpresaEntity entity, Set<EmpresaField> fields) {
+        if (entity != null) {
+            this.id = fields.contains(EmpresaField.ID) ? entity.getId() : null;
+            this.empresa = fields.contains(EmpresaField.EMPRESA) ? entity.getEmpresa() : null;
+            this.aniocreacion = fields.contains(EmpresaField.ANIOCREACION) ? entity.getAniocreacion() : null;
+            this.ciudad = fields.contains(EmpresaField.CIUDAD) ? entity.getCiudad() : null;
+            this.image = fields.contains(EmpresaField.IMAGE) ? imageUrl(entity.getId(), entity.getImage()) : null;
+            this.version = fields.contains(EmpresaField.VERSION) ? entity.getVersion() : null;
+            this.lastModified = fields.contains(EmpresaField.LASTMODIFIED) ? entity.getLastModified() : null;
+        }
+    }
+
     /**
      * Convierte un objeto DTO a Entity.
      *
@@ -102,8 +147,9 @@ public class EmpresaDTO implements Serializable {
         entity.setId(this.getId());
         entity.setEmpresa(this.getEmpresa());
         entity.setCiudad(this.ciudad);
-        entity.setImage(this.image);
+        entity.setImage(imageReference(this.image));
         entity.setAniocreacion(this.getAniocreacion());
+        entity.setVersion(this.version);
         return entity;
     }
 
@@ -183,22 +229,107 @@ public class EmpresaDTO implements Serializable {
         this.image = image;
     }
 
+    /**
+     * Resumen de la empresa para los mensajes de log. Los textos largos se
+     * recortan y de la imagen solo se incluye su longitud, así que el tamaño
+     * del resultado está acotado sin importar el contenido de la empresa.
+     *
+     * @return resumen de la empresa.
+     */
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("EmpresaDTO[id=").append(id);
+        appendBounded(sb.append(", empresa="), empresa);
+        appendBounded(sb.append(", ciudad="), ciudad);
+        sb.append(", aniocreacion=").append(aniocreacion);
+        sb.append(", version=").append(version);
+        sb.append(", image.length=").append(image == null ? 0 : image.length());
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Convierte el atributo image de una entidad en el valor que ve el
+     * cliente.
+     *
+     * @param id id de la empresa.
+     * @param image atributo image de la entidad.
+     * @return la URL de la imagen si está en el almacén de imágenes; de lo
+     * contrario el mismo valor recibido.
+     */
+    public static String imageUrl(Long id, String image) {
+        String hash = EmpresaImageStore.hashOf(image);
+        if (hash == null || id == null) {
+            return image;
+        }
+        return IMAGE_PATH_PREFIX + id + IMAGE_PATH_SUFFIX + hash;
+    }
+
+    /**
+     * Operación inversa de {@link #imageUrl(Long, String)}.
+     */
+    private static String imageReference(String image) {
+        if (image == null || !image.startsWith(IMAGE_PATH_PREFIX)) {
+            return image;
+        }
+        int suffix = image.indexOf(IMAGE_PATH_SUFFIX, IMAGE_PATH_PREFIX.length());
+        if (suffix < 0) {
+            return image;
+        }
+        String hash = image.substring(suffix + IMAGE_PATH_SUFFIX.length());
+        return EmpresaImageStore.isHash(hash) ? EmpresaImageStore.REFERENCE_PREFIX + hash : image;
+    }
+
+    private static void appendBounded(StringBuilder sb, String value) {
+        if (value == null || value.length() <= TO_STRING_MAX_LENGTH) {
+            sb.append(value);
+        } else {
+            sb.append(value, 0, TO_STRING_MAX_LENGTH).append("...");
+        }
     }
 
     /**
      * @return the aniocreacion
      */
-    public Date getAniocreacion() {
+    public LocalDate getAniocreacion() {
         return aniocreacion;
     }
 
     /**
      * @param aniocreacion the aniocreacion to set
      */
-    public void setAniocreacion(Date aniocreacion) {
+    public void setAniocreacion(LocalDate aniocreacion) {
         this.aniocreacion = aniocreacion;
     }
+
+    /**
+     * Obtiene la versión de la empresa. Al actualizar, si se envía, debe ser
+     * la versión vigente.
+     *
+     * @return the version
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version to set
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the lastModified
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the lastModified to set
+     */
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
 }
@@ -0,0 +1,88 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.dtos;
+
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportError;
+import java.io.Serializable;
+
+/**
+ * DTO de una fila que no se pudo importar.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo: <br>
+ * <pre>
+ *   {
+ *      "row": number,
+ *      "message": string
+ *   }
+ * </pre>
+ *
+ * @author ISIS2603
+ */
+public class EmpresaImportErrorDTO implements Serializable {
+
+    private long row;
+    private String message;
+
+    /**
+     * Constructor vacio
+     */
+    public EmpresaImportErrorDTO() {
+    }
+
+    /**
+     * @param error Error de la importación.
+     */
+    public EmpresaImportErrorDTO(EmpresaImportError error) {
+        this.row = error.getRow();
+        this.message = error.getMessage();
+    }
+
+    /**
+     * @return the row
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * @param row the row to set
+     */
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    /**
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @param message the message to set
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.dtos;
+
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportError;
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportSummary;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el resultado de POST /empresas/import.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo: <br>
+ * <pre>
+ *   {
+ *      "read": number,
+ *      "imported": number,
+ *      "failed": number,
+ *      "elapsedMillis": number,
+ *      "completed": boolean,
+ *      "abortMessage": string,
+ *      "errors": [{@link EmpresaImportErrorDTO}]
+ *   }
+ * </pre>
+ * errors tiene solo los primeros errores; failed los cuenta todos.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaImportSummaryDTO implements Serializable {
+
+    private long read;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    private boolean completed;
+    private String abortMessage;
+    private List<EmpresaImportErrorDTO> errors;
+
+    /**
+     * Constructor vacio
+     */
+    public EmpresaImportSummaryDTO() {
+    }
+
+    /**
+     * @param summary Resultado de la importación.
+     */
+    public EmpresaImportSummaryDTO(EmpresaImportSummary summary) {
+        this.read = summary.getRead();
+        this.imported = summary.getImported();
+        this.failed = summary.getFailed();
+        this.elapsedMillis = summary.getElapsedMillis();
+        this.completed = summary.isCompleted();
+        this.abortMessage = summary.getAbortMessage();
+        this.errors = new ArrayList<>(summary.getErrors().size());
+        for (EmpresaImportError error : summary.getErrors()) {
+            errors.add(new EmpresaImportErrorDTO(error));
+        }
+    }
+
+    /**
+     * @return the read
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * @param read the read to set
+     */
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    /**
+     * @return the imported
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * @param imported the imported to set
+     */
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * @return the failed
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @param failed the failed to set
+     */
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * @return the elapsedMillis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @param elapsedMillis the elapsedMillis to set
+     */
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the completed
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @param completed the completed to set
+     */
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * @return the abortMessage
+     */
+    public String getAbortMessage() {
+        return abortMessage;
+    }
+
+    /**
+     * @param abortMessage the abortMessage to set
+     */
+    public void setAbortMessage(String abortMessage) {
+        this.abortMessage = abortMessage;
+    }
+
+    /**
+     * @return the errors
+     */
+    public List<EmpresaImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @param errors the errors to set
+     */
+    public void setErrors(List<EmpresaImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.dtos;
+
+import co.edu.uniandes.csw.empresas.stats.EmpresaStats;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con los conteos de empresas por ciudad y por año de creación.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo: <br>
+ * <pre>
+ *   {
+ *      "total": number,
+ *      "sinCiudad": number,
+ *      "sinAnio": number,
+ *      "ciudades": [{@link EmpresaCountDTO}],
+ *      "anios": [{@link EmpresaCountDTO}]
+ *   }
+ * </pre>
+ *
+ * @author ISIS2603
+ */
+public class EmpresaStatsDTO implements Serializable {
+
+    private long total;
+    private long sinCiudad;
+    private long sinAnio;
+    private List<EmpresaCountDTO> ciudades;
+    private List<EmpresaCountDTO> anios;
+
+    /**
+     * Constructor vacio
+     */
+    public EmpresaStatsDTO() {
+    }
+
+    /**
+     * Crea el DTO con los conteos actuales.
+     *
+     * @param stats Conteos de las empresas.
+     */
+    public EmpresaStatsDTO(EmpresaStats stats) {
+        this.total = stats.getTotal();
+        this.sinCiudad = stats.getWithoutCiudad();
+        this.sinAnio = stats.getWithoutAnio();
+        this.ciudades = ciudadesOf(stats.getByCiudad());
+        this.anios = aniosOf(stats.getByAnio());
+    }
+
+    /**
+     * @param counts Número de empresas por ciudad.
+     * @return los conteos como DTO, en el mismo orden.
+     */
+    public static List<EmpresaCountDTO> ciudadesOf(Map<String, Long> counts) {
+        List<EmpresaCountDTO> list = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            list.add(EmpresaCountDTO.ofCiudad(count.getKey(), count.getValue()));
+        }
+        return list;
+    }
+
+    /**
+     * @param counts Número de empresas por año de creación.
+     * @return los conteos como DTO, en el mismo orden.
+     */
+    public static List<EmpresaCountDTO> aniosOf(Map<Integer, Long> counts) {
+        List<EmpresaCountDTO> list = new ArrayList<>(counts.size());
+        for (Map.Entry<Integer, Long> count : counts.entrySet()) {
+            list.add(EmpresaCountDTO.ofAnio(count.getKey(), count.getValue()));
+        }
+        return list;
+    }
+
+    /**
+     * @param histogram Número de empresas por intervalo, con el primer año
+     * como llave.
+     * @param width Número de años de cada intervalo.
+     * @return los conteos como DTO, en el mismo orden.
+     */
+    public static List<EmpresaCountDTO> intervalosOf(Map<Integer, Long> histogram, int width) {
+        List<EmpresaCountDTO> list = new ArrayList<>(histogram.size());
+        for (Map.Entry<Integer, Long> count : histogram.entrySet()) {
+            list.add(EmpresaCountDTO.ofIntervalo(count.getKey(), count.getKey() + width - 1, count.getValue()));
+        }
+        return list;
+    }
+
+    /**
+     * @return the total
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @param total the total to set
+     */
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * @return the sinCiudad
+     */
+    public long getSinCiudad() {
+        return sinCiudad;
+    }
+
+    /**
+     * @param sinCiudad the sinCiudad to set
+     */
+    public void setSinCiudad(long sinCiudad) {
+        this.sinCiudad = sinCiudad;
+    }
+
+    /**
+     * @return the sinAnio
+     */
+    public long getSinAnio() {
+        return sinAnio;
+    }
+
+    /**
+     * @param sinAnio the sinAnio to set
+     */
+    public void setSinAnio(long sinAnio) {
+        this.sinAnio = sinAnio;
+    }
+
+    /**
+     * @return the ciudades
+     */
+    public List<EmpresaCountDTO> getCiudades() {
+        return ciudades;
+    }
+
+    /**
+     * @param ciudades the ciudades to set
+     */
+    public void setCiudades(List<EmpresaCountDTO> ciudades) {
+        this.ciudades = ciudades;
+    }
+
+    /**
+     * @return the anios
+     */
+    public List<EmpresaCountDTO> getAnios() {
+        return anios;
+    }
+
+    /**
+     * @param anios the anios to set
+     */
+    public void setAnios(List<EmpresaCountDTO> anios) {
+        this.anios = anios;
+    }
+}
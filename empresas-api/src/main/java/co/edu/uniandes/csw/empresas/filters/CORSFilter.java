@@ -1,46 +1,135 @@
-/*
-MIT License
-
-Copyright (c) 2017 Universidad de los Andes - ISIS2603
-
-Permission is hereby granted, free of charge, to any person obtaining a copy
-of this software and associated documentation files (the "Software"), to deal
-in the Software without restriction, including without limitation the rights
-to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
-copies of the Software, and to permit persons to whom the Software is
-furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be included in all
-copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
-AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
-LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
-OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
-SOFTWARE.
- */
 package co.edu.uniandes.csw.empresa.filters;
 
 import java.io.IOException;
-
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 
+/**
+ * Encabezados CORS de la API.
+ *
+ * Las peticiones de preflight (OPTIONS con <code>Origin</code> y
+ * <code>Access-Control-Request-Method</code>) se responden en este filtro,
+ * antes de buscar el recurso, con encabezados cuyo valor se calcula una sola
+ * vez al cargar la clase. A las demás respuestas solo se les agregan los
+ * encabezados que dependen del origen.
+ *
+ * Los orígenes permitidos se leen de la propiedad del sistema
+ * <code>empresas.cors.origins</code>, separados por comas. Con el valor
+ * <code>*</code> (por defecto) se acepta cualquier origen pero sin
+ * credenciales, como exige la especificación de CORS; con una lista explícita
+ * se devuelve el origen de la petición y se permiten credenciales.
+ *
+ * @author ISIS2603
+ */
 @Provider
-public class CORSFilter implements ContainerResponseFilter {
-
-   @Override
-   public void filter(final ContainerRequestContext requestContext,
-                      final ContainerResponseContext cres) throws IOException {
-      cres.getHeaders().add("Access-Control-Allow-Origin", "*");
-      cres.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization");
-      cres.getHeaders().add("Access-Control-Allow-Credentials", "true");
-      cres.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD");
-      cres.getHeaders().add("Access-Control-Max-Age", "1209600");
-   }
-
-}
\ No newline at end of file
+@PreMatching
+@Priority(Priorities.HEADER_DECORATOR)
+public class CORSFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String ORIGIN = "Origin";
+
+    static final String REQUEST_METHOD = "Access-Control-Request-Method";
+
+    static final String ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+
+    static final String ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
+
+    static final String ALLOW_METHODS = "Access-Control-Allow-Methods";
+
+    static final String ALLOW_HEADERS = "Access-Control-Allow-Headers";
+
+    static final String EXPOSE_HEADERS = "Access-Control-Expose-Headers";
+
+    static final String MAX_AGE = "Access-Control-Max-Age";
+
+    static final String ALLOWED_METHODS = "GET, POST, PUT, PATCH, DELETE, OPTIONS, HEAD";
+
+    static final String ALLOWED_HEADERS = "origin, content-type, accept, authorization, if-none-match, if-modified-since, x-client-id, last-event-id";
+
+    static final String EXPOSED_HEADERS = "ETag, Last-Modified, Link, X-Next-Cursor, X-Total-Count, Retry-After";
+
+    static final String PREFLIGHT_MAX_AGE = "1209600";
+
+    /**
+     * Orígenes permitidos, o null si se permite cualquiera.
+     */
+    private static final Set<String> ALLOWED_ORIGINS = parseOrigins(System.getProperty("empresas.cors.origins", "*"));
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String origin = request.getHeaderString(ORIGIN);
+        if (origin == null || !HttpMethod.OPTIONS.equals(request.getMethod()) || request.getHeaderString(REQUEST_METHOD) == null) {
+            return;
+        }
+        if (!isAllowed(origin)) {
+            request.abortWith(Response.status(Response.Status.FORBIDDEN).build());
+            return;
+        }
+        Response.ResponseBuilder preflight = Response.ok()
+                .header(ALLOW_METHODS, ALLOWED_METHODS)
+                .header(ALLOW_HEADERS, ALLOWED_HEADERS)
+                .header(MAX_AGE, PREFLIGHT_MAX_AGE);
+        request.abortWith(allowOrigin(preflight, origin).build());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        String origin = request.getHeaderString(ORIGIN);
+        MultivaluedMap<String, Object> headers = response.getHeaders();
+        if (origin == null || headers.containsKey(ALLOW_ORIGIN) || !isAllowed(origin)) {
+            return;
+        }
+        if (ALLOWED_ORIGINS == null) {
+            headers.putSingle(ALLOW_ORIGIN, "*");
+        } else {
+            headers.putSingle(ALLOW_ORIGIN, origin);
+            headers.putSingle(ALLOW_CREDENTIALS, "true");
+            headers.add("Vary", ORIGIN);
+        }
+        headers.putSingle(EXPOSE_HEADERS, EXPOSED_HEADERS);
+    }
+
+    private static Response.ResponseBuilder allowOrigin(Response.ResponseBuilder builder, String origin) {
+        if (ALLOWED_ORIGINS == null) {
+            return builder.header(ALLOW_ORIGIN, "*");
+        }
+        return builder.header(ALLOW_ORIGIN, origin)
+                .header(ALLOW_CREDENTIALS, "true")
+                .header("Vary", ORIGIN);
+    }
+
+    private static boolean isAllowed(String origin) {
+        return ALLOWED_ORIGINS == null || ALLOWED_ORIGINS.contains(origin);
+    }
+
+    /**
+     * @param origins orígenes separados por comas, o <code>*</code>.
+     * @return el conjunto inmutable de orígenes, o null si se permite
+     * cualquiera.
+     */
+    static Set<String> parseOrigins(String origins) {
+        Set<String> set = new HashSet<>();
+        for (String origin : origins.split(",")) {
+            String trimmed = origin.trim();
+            if ("*".equals(trimmed)) {
+                return null;
+            }
+            if (!trimmed.isEmpty()) {
+                set.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+}
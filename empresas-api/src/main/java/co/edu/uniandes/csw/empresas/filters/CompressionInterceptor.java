@@ -0,0 +1,445 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresa.filters;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compresión de las respuestas y descompresión de los cuerpos de las
+ * peticiones.
+ *
+ * Las respuestas se comprimen con gzip o deflate según el encabezado
+ * <code>Accept-Encoding</code> de la petición, pero solo cuando superan un
+ * tamaño mínimo: los primeros bytes se guardan en un buffer y, si la respuesta
+ * termina antes de llenarlo, se envía sin comprimir. Las imágenes no se
+ * comprimen porque ya vienen comprimidas. Los {@link Deflater} se reutilizan
+ * entre peticiones, ya que crear uno reserva memoria nativa.
+ *
+ * Una respuesta comprimida es otra representación del recurso, así que su
+ * <code>ETag</code> lleva el sufijo <code>-gzip</code> o
+ * <code>-deflate</code>. Antes de evaluar las precondiciones se quita ese
+ * sufijo de <code>If-None-Match</code>, para que los recursos comparen con el
+ * ETag sin comprimir, y se vuelve a agregar al ETag de la respuesta 304.
+ *
+ * Los cuerpos de las peticiones con <code>Content-Encoding</code> gzip o
+ * deflate se descomprimen antes de leerlos, con un límite de tamaño para que
+ * un cuerpo pequeño no se convierta en uno enorme.
+ *
+ * Se configura con las propiedades del sistema
+ * <code>empresas.compression.threshold</code> (1024 bytes por defecto),
+ * <code>empresas.compression.level</code> (6 por defecto) y
+ * <code>empresas.compression.maxRequestBytes</code> (64 MB por defecto).
+ *
+ * @author ISIS2603
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor, ReaderInterceptor, ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String GZIP = "gzip";
+
+    static final String DEFLATE = "deflate";
+
+    /**
+     * Tamaño mínimo en bytes de una respuesta para comprimirla.
+     */
+    static final int THRESHOLD = Integer.getInteger("empresas.compression.threshold", 1024);
+
+    static final int LEVEL = Integer.getInteger("empresas.compression.level", 6);
+
+    /**
+     * Tamaño máximo en bytes de un cuerpo de petición ya descomprimido.
+     */
+    static final long MAX_REQUEST_BYTES = Long.getLong("empresas.compression.maxRequestBytes", 64L * 1024 * 1024);
+
+    /**
+     * Propiedad de la petición con la codificación que traían los ETag de
+     * <code>If-None-Match</code>.
+     */
+    static final String TAG_ENCODING_PROPERTY = CompressionInterceptor.class.getName() + ".tagEncoding";
+
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final BlockingQueue<Deflater> GZIP_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final BlockingQueue<Deflater> DEFLATE_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        MediaType type = context.getMediaType();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || (type != null && "image".equals(type.getType()))) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String encoding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+        OutputStream original = context.getOutputStream();
+        ThresholdOutputStream output = new ThresholdOutputStream(original, headers, encoding);
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+            output.finish();
+        } finally {
+            output.release();
+            context.setOutputStream(original);
+        }
+    }
+
+    /**
+     * Quita de <code>If-None-Match</code> el sufijo de codificación de los
+     * ETag de respuestas comprimidas.
+     */
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String ifNoneMatch = request.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null || ifNoneMatch.indexOf('-') < 0) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(ifNoneMatch.length());
+        String found = null;
+        for (String item : ifNoneMatch.split(",")) {
+            String tag = item.trim();
+            for (String encoding : new String[]{GZIP, DEFLATE}) {
+                String suffix = "-" + encoding + "\"";
+                if (tag.endsWith(suffix)) {
+                    tag = tag.substring(0, tag.length() - suffix.length()) + "\"";
+                    found = encoding;
+                    break;
+                }
+            }
+            sb.append(sb.length() == 0 ? "" : ", ").append(tag);
+        }
+        if (found != null) {
+            request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, sb.toString());
+            request.setProperty(TAG_ENCODING_PROPERTY, found);
+        }
+    }
+
+    /**
+     * Vuelve a poner el sufijo de codificación en el ETag de una respuesta
+     * 304 a una petición cuyo <code>If-None-Match</code> lo traía, ya que el
+     * cliente tiene guardada una representación comprimida. El sufijo es el
+     * de la codificación que se usaría ahora.
+     */
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        if (response.getStatus() != 304 || request.getProperty(TAG_ENCODING_PROPERTY) == null) {
+            return;
+        }
+        String encoding = negotiate(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            withEncoding(response.getHeaders(), encoding);
+        }
+    }
+
+    /**
+     * Agrega el sufijo de la codificación al ETag de la respuesta, si tiene.
+     *
+     * @param headers encabezados de la respuesta.
+     * @param encoding gzip o deflate.
+     */
+    static void withEncoding(MultivaluedMap<String, Object> headers, String encoding) {
+        Object value = headers.getFirst(HttpHeaders.ETAG);
+        if (value == null) {
+            return;
+        }
+        EntityTag tag = value instanceof EntityTag ? (EntityTag) value : EntityTag.valueOf(value.toString());
+        headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + "-" + encoding, tag.isWeak()));
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null) {
+            encoding = encoding.trim().toLowerCase(Locale.ROOT);
+            if (GZIP.equals(encoding) || "x-gzip".equals(encoding)) {
+                context.setInputStream(new LimitedInputStream(new GZIPInputStream(context.getInputStream())));
+            } else if (DEFLATE.equals(encoding)) {
+                context.setInputStream(new LimitedInputStream(new InflaterInputStream(context.getInputStream())));
+            } else if (!"identity".equals(encoding)) {
+                throw new WebApplicationException("La codificación " + encoding + " no está soportada.", 415);
+            }
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        }
+        return context.proceed();
+    }
+
+    /**
+     * Escoge la codificación de la respuesta.
+     *
+     * @param acceptEncoding valor del encabezado Accept-Encoding, o null.
+     * @return gzip o deflate, en ese orden de preferencia, si el cliente los
+     * acepta; de lo contrario null.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String item : acceptEncoding.split(",")) {
+            String coding = item;
+            int semicolon = item.indexOf(';');
+            if (semicolon >= 0) {
+                coding = item.substring(0, semicolon);
+                if (isZeroQuality(item.substring(semicolon + 1))) {
+                    continue;
+                }
+            }
+            coding = coding.trim().toLowerCase(Locale.ROOT);
+            if (GZIP.equals(coding) || "x-gzip".equals(coding) || "*".equals(coding)) {
+                return GZIP;
+            }
+            deflate |= DEFLATE.equals(coding);
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String q = parameters.trim();
+        if (!q.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(q.substring(2).trim()) <= 0.0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Deflater acquire(String encoding) {
+        Deflater deflater = (GZIP.equals(encoding) ? GZIP_POOL : DEFLATE_POOL).poll();
+        // gzip usa deflate sin la envoltura de zlib; el encabezado y el final de gzip se escriben aparte.
+        return deflater != null ? deflater : new Deflater(LEVEL, GZIP.equals(encoding));
+    }
+
+    private static void recycle(String encoding, Deflater deflater) {
+        deflater.reset();
+        if (!(GZIP.equals(encoding) ? GZIP_POOL : DEFLATE_POOL).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Flujo que guarda los primeros {@link #THRESHOLD} bytes y, si la
+     * respuesta los supera, empieza a comprimir.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final OutputStream out;
+
+        private final MultivaluedMap<String, Object> headers;
+
+        private final String encoding;
+
+        private byte[] buffer = new byte[Math.max(THRESHOLD, 1)];
+
+        private int count;
+
+        private Deflater deflater;
+
+        private DeflaterOutputStream compressed;
+
+        private CRC32 crc;
+
+        private long size;
+
+        ThresholdOutputStream(OutputStream out, MultivaluedMap<String, Object> headers, String encoding) {
+            this.out = out;
+            this.headers = headers;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (compressed == null && count < THRESHOLD) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed == null && count + len <= THRESHOLD) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            if (compressed == null) {
+                start();
+            }
+            compress(b, off, len);
+        }
+
+        /**
+         * Mientras no se haya decidido si se comprime, flush no envía nada:
+         * los bytes guardados esperan hasta saber el tamaño de la respuesta.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Se termina en finish(), después de que el MessageBodyWriter termina de escribir.
+        }
+
+        /**
+         * Envía lo que falte de la respuesta.
+         */
+        void finish() throws IOException {
+            if (compressed == null) {
+                out.write(buffer, 0, count);
+                count = 0;
+                return;
+            }
+            compressed.finish();
+            if (crc != null) {
+                writeIntLE((int) crc.getValue());
+                writeIntLE((int) size);
+            }
+            out.flush();
+        }
+
+        /**
+         * Devuelve el Deflater al pool.
+         */
+        void release() {
+            if (deflater != null) {
+                recycle(encoding, deflater);
+                deflater = null;
+            }
+        }
+
+        private void start() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            withEncoding(headers, encoding);
+            deflater = acquire(encoding);
+            if (GZIP.equals(encoding)) {
+                out.write(GZIP_HEADER);
+                crc = new CRC32();
+            }
+            compressed = new DeflaterOutputStream(out, deflater, 8192, true);
+            byte[] pending = buffer;
+            buffer = null;
+            compress(pending, 0, count);
+        }
+
+        private void compress(byte[] b, int off, int len) throws IOException {
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            size += len;
+            compressed.write(b, off, len);
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+
+    /**
+     * Flujo que falla cuando se leen más de {@link #MAX_REQUEST_BYTES} bytes.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long read;
+
+        LimitedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > MAX_REQUEST_BYTES) {
+                throw new WebApplicationException("El cuerpo de la petición descomprimido supera " + MAX_REQUEST_BYTES + " bytes.", 413);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresa.filters;
+
+import co.edu.uniandes.csw.empresas.metrics.MetricsRegistry;
+import co.edu.uniandes.csw.empresas.metrics.OperationMetrics;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Mide la duración de cada petición REST y la registra en
+ * {@link MetricsRegistry} bajo el nombre del método del recurso que la
+ * atendió, por ejemplo <code>EmpresaResource.gets</code>.
+ *
+ * Una respuesta con estado 5xx cuenta como error. Las filas de la respuesta
+ * se cuentan con {@link RowCounted#of(Object)}: cada elemento de una
+ * colección, o de una {@link javax.ws.rs.core.GenericEntity} de una
+ * colección, es una fila, y las respuestas ya serializadas dicen cuántas
+ * tienen.
+ *
+ * @author ISIS2603
+ */
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * Propiedad de la petición con su {@link Timing}.
+     */
+    static final String TIMING_PROPERTY = MetricsFilter.class.getName() + ".timing";
+
+    /**
+     * Nombre de las peticiones que no llegaron a ningún recurso.
+     */
+    static final String UNMATCHED = "unmatched";
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        Method method = resourceInfo.getResourceMethod();
+        OperationMetrics metrics = method == null ? registry.endpoint(UNMATCHED) : registry.endpoint(method);
+        request.setProperty(TIMING_PROPERTY, new Timing(metrics, System.nanoTime()));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        Object timing = request.getProperty(TIMING_PROPERTY);
+        if (!(timing instanceof Timing)) {
+            return;
+        }
+        Timing started = (Timing) timing;
+        started.metrics.record(System.nanoTime() - started.start, RowCounted.of(response.getEntity()), response.getStatus() >= 500);
+    }
+
+    /**
+     * Operación que atiende la petición e instante en que empezó, en
+     * nanosegundos. Se resuelve la operación al empezar porque las respuestas
+     * asíncronas terminan en otro hilo.
+     */
+    private static final class Timing {
+
+        private final OperationMetrics metrics;
+
+        private final long start;
+
+        Timing(OperationMetrics metrics, long start) {
+            this.metrics = metrics;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresa.filters;
+
+import co.edu.uniandes.csw.empresas.limits.AdaptiveConcurrencyLimit;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Control de admisión de los recursos anotados con {@link RateLimited}.
+ *
+ * Primero se aplica un límite de tasa por cliente con un {@link TokenBucket}:
+ * si el cliente no tiene tokens se responde 429 con <code>Retry-After</code>.
+ * Luego se pide un cupo al {@link AdaptiveConcurrencyLimit}, que limita las
+ * peticiones concurrentes de todos los clientes según la latencia de la base
+ * de datos: si no hay cupo se responde 503 con <code>Retry-After</code>. El
+ * cupo se libera en el filtro de respuesta, que también se ejecuta para las
+ * respuestas asíncronas.
+ *
+ * El cliente se identifica con el usuario autenticado, si hay uno, o con la
+ * dirección remota. El encabezado <code>X-Client-Id</code> solo se usa cuando
+ * la petición llega de uno de los proxies de confianza de
+ * <code>empresas.ratelimit.trustedProxies</code> (direcciones separadas por
+ * comas, ninguna por defecto); de otro modo un cliente podría cambiarlo en
+ * cada petición para no ser limitado nunca.
+ *
+ * Los baldes viven en un {@link ConcurrentHashMap}; cada minuto se quitan los
+ * que llevan llenos más de un minuto, que son los de clientes inactivos. El
+ * mapa tiene a lo sumo <code>empresas.ratelimit.maxClients</code> baldes
+ * (10000 por defecto, más los que se creen a la vez en hilos distintos): si
+ * está lleno se quitan los inactivos de inmediato (a lo sumo una vez por
+ * segundo) y, si sigue lleno, las peticiones de clientes nuevos se rechazan
+ * con 503.
+ *
+ * Se configura además con las propiedades del sistema
+ * <code>empresas.ratelimit.rate</code> (peticiones por segundo, 50) y
+ * <code>empresas.ratelimit.burst</code> (100).
+ *
+ * @author ISIS2603
+ */
+@Provider
+@RateLimited
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    /**
+     * Propiedad de la petición que indica que tiene un cupo del límite de
+     * concurrencia.
+     */
+    static final String ACQUIRED_PROPERTY = RateLimitFilter.class.getName() + ".acquired";
+
+    private static final int RATE = Integer.getInteger("empresas.ratelimit.rate", 50);
+
+    private static final int BURST = Integer.getInteger("empresas.ratelimit.burst", 100);
+
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / RATE;
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int MAX_CLIENTS = Integer.getInteger("empresas.ratelimit.maxClients", 10000);
+
+    /**
+     * Tiempo mínimo entre dos barridos forzados porque el mapa está lleno.
+     */
+    private static final long FULL_SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Set<String> TRUSTED_PROXIES = parseProxies(System.getProperty("empresas.ratelimit.trustedProxies", ""));
+
+    /**
+     * Segundos que se sugiere esperar cuando no hay cupo de concurrencia.
+     */
+    private static final int BUSY_RETRY_AFTER_SECONDS = 1;
+
+    private static final ConcurrentMap<String, TokenBucket> BUCKETS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong LAST_SWEEP = new AtomicLong(System.nanoTime());
+
+    private static final AtomicLong LAST_FULL_SWEEP = new AtomicLong(System.nanoTime() - FULL_SWEEP_NANOS);
+
+    @Inject
+    private AdaptiveConcurrencyLimit limit;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        long now = System.nanoTime();
+        sweep(now, LAST_SWEEP, IDLE_NANOS);
+        String client = clientOf(request);
+        TokenBucket bucket = BUCKETS.get(client);
+        if (bucket == null) {
+            if (BUCKETS.size() >= MAX_CLIENTS) {
+                sweep(now, LAST_FULL_SWEEP, FULL_SWEEP_NANOS);
+                if (BUCKETS.size() >= MAX_CLIENTS) {
+                    request.abortWith(reject(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), "Hay demasiados clientes activos.", BUSY_RETRY_AFTER_SECONDS));
+                    return;
+                }
+            }
+            bucket = BUCKETS.computeIfAbsent(client, key -> new TokenBucket(INTERVAL_NANOS, BURST, now));
+        }
+        long wait = bucket.tryConsume(now);
+        if (wait > 0) {
+            request.abortWith(reject(429, "Demasiadas peticiones de " + client + ".", secondsOf(wait)));
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            request.abortWith(reject(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), "El servidor está ocupado.", BUSY_RETRY_AFTER_SECONDS));
+            return;
+        }
+        request.setProperty(ACQUIRED_PROPERTY, Boolean.TRUE);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        if (request.getProperty(ACQUIRED_PROPERTY) != null) {
+            request.removeProperty(ACQUIRED_PROPERTY);
+            limit.release();
+        }
+    }
+
+    /**
+     * @return la llave del balde del cliente. Los prefijos evitan que un
+     * usuario o un id de cliente coincidan con una dirección.
+     */
+    private String clientOf(ContainerRequestContext request) {
+        Principal user = request.getSecurityContext() == null ? null : request.getSecurityContext().getUserPrincipal();
+        if (user != null) {
+            return "user:" + user.getName();
+        }
+        String address = servletRequest != null ? servletRequest.getRemoteAddr() : "";
+        if (TRUSTED_PROXIES.contains(address)) {
+            String client = request.getHeaderString(CLIENT_HEADER);
+            if (client != null && !client.isEmpty()) {
+                return "id:" + client;
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Quita los baldes inactivos, a lo sumo una vez por intervalo y solo en el
+     * hilo que gane el compare-and-set.
+     */
+    private static void sweep(long now, AtomicLong lastSweep, long interval) {
+        long last = lastSweep.get();
+        if (now - last < interval || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<TokenBucket> it = BUCKETS.values().iterator(); it.hasNext();) {
+            if (it.next().isIdle(now, IDLE_NANOS)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @param proxies direcciones separadas por comas.
+     * @return el conjunto inmutable de direcciones.
+     */
+    static Set<String> parseProxies(String proxies) {
+        Set<String> set = new HashSet<>();
+        for (String proxy : proxies.split(",")) {
+            String trimmed = proxy.trim();
+            if (!trimmed.isEmpty()) {
+                set.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static long secondsOf(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static Response reject(int status, String message, long retryAfterSeconds) {
+        return Response.status(status)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresa.filters;
+
+import java.util.Collection;
+import javax.ws.rs.core.GenericEntity;
+
+/**
+ * Entidad de una respuesta que sabe cuántas filas tiene, aunque ya esté
+ * serializada. La usa {@link MetricsFilter} para contar las filas de las
+ * respuestas que salen del caché de respuestas.
+ *
+ * @author ISIS2603
+ */
+public interface RowCounted {
+
+    /**
+     * @return número de filas de la respuesta.
+     */
+    int getRows();
+
+    /**
+     * Cuenta las filas de la entidad de una respuesta: los elementos si es una
+     * colección o una {@link GenericEntity} de una colección,
+     * {@link #getRows()} si es un {@link RowCounted}, 0 si no hay entidad y 1
+     * en cualquier otro caso.
+     *
+     * @param entity entidad de la respuesta, o null.
+     * @return número de filas.
+     */
+    static int of(Object entity) {
+        Object value = entity instanceof GenericEntity ? ((GenericEntity<?>) entity).getEntity() : entity;
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof RowCounted) {
+            return ((RowCounted) value).getRows();
+        }
+        return value instanceof Collection ? ((Collection<?>) value).size() : 1;
+    }
+}
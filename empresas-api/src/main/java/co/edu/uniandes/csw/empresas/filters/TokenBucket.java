@@ -0,0 +1,96 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresa.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens de un cliente, implementado como GCRA: en lugar de guardar
+ * los tokens y la hora de la última recarga, guarda un solo número, el
+ * instante teórico en que el balde volvería a estar lleno. Así el estado cabe
+ * en un {@link AtomicLong} y se actualiza con compare-and-set, sin candados.
+ *
+ * @author ISIS2603
+ */
+final class TokenBucket {
+
+    /**
+     * Nanosegundos que tarda en recargarse un token.
+     */
+    private final long intervalNanos;
+
+    /**
+     * Cuánto puede adelantarse el instante teórico al actual: el tamaño de la
+     * ráfaga menos uno, en nanosegundos.
+     */
+    private final long toleranceNanos;
+
+    /**
+     * Instante teórico de la próxima llegada, en nanosegundos.
+     */
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param intervalNanos nanosegundos que tarda en recargarse un token.
+     * @param burst número de peticiones que se aceptan seguidas con el balde
+     * lleno.
+     * @param now instante actual en nanosegundos.
+     */
+    TokenBucket(long intervalNanos, int burst, long now) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Intenta tomar un token.
+     *
+     * @param now instante actual en nanosegundos.
+     * @return 0 si se tomó el token, o los nanosegundos que faltan para que
+     * haya uno.
+     */
+    long tryConsume(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = tat - now > 0 ? tat : now;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param now instante actual en nanosegundos.
+     * @param idleNanos nanosegundos que debe llevar lleno.
+     * @return true si el balde lleva lleno al menos <code>idleNanos</code>;
+     * quitarlo equivale entonces a crearlo de nuevo.
+     */
+    boolean isIdle(long now, long idleNanos) {
+        return now - theoreticalArrival.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.providers;
+
+import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Lee y escribe {@link EmpresaDTO} y listas de {@link EmpresaDTO} en CBOR
+ * (<code>application/cbor</code>), una representación binaria del mismo
+ * modelo del JSON.
+ *
+ * Cada empresa es un mapa con las mismas llaves del JSON, sin las que son
+ * null. El año de creación va como número de días desde 1970-01-01 (etiqueta
+ * 100) y la fecha de última modificación como segundos desde 1970-01-01T00:00Z
+ * (etiqueta 1), así que ninguna fecha pasa por texto. Una lista es un arreglo
+ * de mapas.
+ *
+ * @author ISIS2603
+ */
+@Provider
+@Produces(CborEmpresaProvider.APPLICATION_CBOR)
+@Consumes(CborEmpresaProvider.APPLICATION_CBOR)
+public class CborEmpresaProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    /**
+     * Tipo de los cuerpos en CBOR.
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    /**
+     * Tipo CBOR para <code>@Produces</code>, con menor prioridad que JSON para
+     * que los clientes que aceptan cualquier tipo sigan recibiendo JSON.
+     */
+    public static final String APPLICATION_CBOR_LOW_QUALITY = APPLICATION_CBOR + ";qs=0.5";
+
+    /**
+     * Tipo de los cuerpos en CBOR.
+     */
+    public static final MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
+
+    private static final int MAX_LIST_SIZE = 1_000_000;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isEmpresa(type) || isEmpresaList(type, genericType);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        CborOutput output = new CborOutput(entityStream);
+        if (t instanceof EmpresaDTO) {
+            write(output, (EmpresaDTO) t);
+        } else {
+            Collection<?> empresas = (Collection<?>) t;
+            output.writeArrayHeader(empresas.size());
+            for (Object empresa : empresas) {
+                write(output, (EmpresaDTO) empresa);
+            }
+        }
+        output.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isEmpresa(type) || (type == List.class && isEmpresaList(type, genericType));
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        CborInput input = new CborInput(entityStream);
+        try {
+            if (isEmpresa(type)) {
+                return read(input);
+            }
+            int size = input.readArrayHeader();
+            if (size > MAX_LIST_SIZE) {
+                throw new WebApplicationException("La lista CBOR tiene demasiadas empresas: " + size, 413);
+            }
+            List<EmpresaDTO> empresas = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                empresas.add(read(input));
+            }
+            return empresas;
+        } catch (IOException | ClassCastException | DateTimeException e) {
+            throw new WebApplicationException("El cuerpo CBOR no es válido: " + e.getMessage(), 400);
+        }
+    }
+
+    /**
+     * Escribe una empresa como un mapa CBOR.
+     *
+     * @param output destino.
+     * @param empresa empresa a escribir.
+     * @throws IOException si no se puede escribir.
+     */
+    static void write(CborOutput output, EmpresaDTO empresa) throws IOException {
+        int fields = count(empresa.getId()) + count(empresa.getEmpresa()) + count(empresa.getCiudad())
+                + count(empresa.getImage()) + count(empresa.getAniocreacion()) + count(empresa.getVersion())
+                + count(empresa.getLastModified());
+        output.writeMapHeader(fields);
+        if (empresa.getId() != null) {
+            output.writeText("id");
+            output.writeLong(empresa.getId());
+        }
+        if (empresa.getEmpresa() != null) {
+            output.writeText("empresa");
+            output.writeText(empresa.getEmpresa());
+        }
+        if (empresa.getCiudad() != null) {
+            output.writeText("ciudad");
+            output.writeText(empresa.getCiudad());
+        }
+        if (empresa.getImage() != null) {
+            output.writeText("image");
+            output.writeText(empresa.getImage());
+        }
+        if (empresa.getAniocreacion() != null) {
+            output.writeText("aniocreacion");
+            output.writeTag(CborOutput.TAG_EPOCH_DAYS);
+            output.writeLong(empresa.getAniocreacion().toEpochDay());
+        }
+        if (empresa.getVersion() != null) {
+            output.writeText("version");
+            output.writeLong(empresa.getVersion());
+        }
+        if (empresa.getLastModified() != null) {
+            output.writeText("lastModified");
+            output.writeTag(CborOutput.TAG_EPOCH_SECONDS);
+            long millis = empresa.getLastModified().getTime();
+            if (millis % 1000 == 0) {
+                output.writeLong(millis / 1000);
+            } else {
+                output.writeDouble(millis / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Lee una empresa de un mapa CBOR. Las llaves desconocidas se ignoran.
+     *
+     * @param input origen.
+     * @return la empresa leída.
+     * @throws IOException si el CBOR no es válido.
+     * @throws DateTimeException si el año de creación está fuera del rango de
+     * {@link LocalDate}.
+     */
+    static EmpresaDTO read(CborInput input) throws IOException {
+        EmpresaDTO empresa = new EmpresaDTO();
+        int fields = input.readMapHeader();
+        for (int i = 0; i < fields; i++) {
+            String key = input.readText();
+            if (input.readNull()) {
+                continue;
+            }
+            switch (key) {
+                case "id":
+                    empresa.setId(input.readLong());
+                    break;
+                case "empresa":
+                    empresa.setEmpresa(input.readText());
+                    break;
+                case "ciudad":
+                    empresa.setCiudad(input.readText());
+                    break;
+                case "image":
+                    empresa.setImage(input.readText());
+                    break;
+                case "aniocreacion":
+                    expectTag(input, CborOutput.TAG_EPOCH_DAYS);
+                    empresa.setAniocreacion(LocalDate.ofEpochDay(input.readLong()));
+                    break;
+                case "version":
+                    empresa.setVersion(input.readLong());
+                    break;
+                case "lastModified":
+                    expectTag(input, CborOutput.TAG_EPOCH_SECONDS);
+                    empresa.setLastModified(new Date(Math.round(input.readNumber() * 1000.0)));
+                    break;
+                default:
+                    input.skip();
+                    break;
+            }
+        }
+        return empresa;
+    }
+
+    private static void expectTag(CborInput input, int tag) throws IOException {
+        if (input.peekMajor() == CborOutput.MAJOR_TAG) {
+            long found = input.readTag();
+            if (found != tag) {
+                throw new IOException("Se esperaba la etiqueta CBOR " + tag + " y llegó la " + found);
+            }
+        }
+    }
+
+    private static int count(Object value) {
+        return value == null ? 0 : 1;
+    }
+
+    private static boolean isEmpresa(Class<?> type) {
+        return type == EmpresaDTO.class;
+    }
+
+    private static boolean isEmpresaList(Class<?> type, Type genericType) {
+        if (!Collection.class.isAssignableFrom(type) || !(genericType instanceof ParameterizedType)) {
+            return false;
+        }
+        Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+        return arguments.length == 1 && arguments[0] == EmpresaDTO.class;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.providers;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector de CBOR (RFC 7049) con solo los tipos que usan las empresas. Los
+ * valores de otros tipos se pueden saltar con {@link #skip()}; los elementos
+ * de longitud indefinida y los enteros mayores que {@link Long#MAX_VALUE} no
+ * se aceptan.
+ *
+ * @author ISIS2603
+ */
+final class CborInput {
+
+    /**
+     * Longitud máxima de un texto, para que un cuerpo malformado no reserve
+     * memoria sin límite.
+     */
+    static final int MAX_TEXT_LENGTH = 1 << 20;
+
+    /**
+     * Número máximo de arreglos, mapas y etiquetas anidados que se pueden
+     * saltar, para que un cuerpo malformado no agote la pila.
+     */
+    static final int MAX_DEPTH = 32;
+
+    static final int SIMPLE_FALSE = 20;
+
+    static final int SIMPLE_TRUE = 21;
+
+    static final int SIMPLE_NULL = 22;
+
+    private final InputStream in;
+
+    private final byte[] buffer = new byte[8192];
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * Byte inicial del siguiente elemento, ya leído por {@link #peekMajor()}, o
+     * -1.
+     */
+    private int initial = -1;
+
+    CborInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return el tipo mayor del siguiente elemento, sin consumirlo.
+     */
+    int peekMajor() throws IOException {
+        if (initial < 0) {
+            initial = readByte();
+        }
+        return initial >>> 5;
+    }
+
+    /**
+     * @return true si el siguiente elemento es null; en ese caso lo consume.
+     */
+    boolean readNull() throws IOException {
+        if (peekMajor() == CborOutput.MAJOR_SIMPLE && (initial & 0x1f) == SIMPLE_NULL) {
+            initial = -1;
+            return true;
+        }
+        return false;
+    }
+
+    int readArrayHeader() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, readHeader(CborOutput.MAJOR_ARRAY));
+    }
+
+    int readMapHeader() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, readHeader(CborOutput.MAJOR_MAP));
+    }
+
+    long readTag() throws IOException {
+        return readHeader(CborOutput.MAJOR_TAG);
+    }
+
+    long readLong() throws IOException {
+        int major = peekMajor();
+        if (major == CborOutput.MAJOR_NEGATIVE) {
+            return -1 - readHeader(CborOutput.MAJOR_NEGATIVE);
+        }
+        return readHeader(CborOutput.MAJOR_UNSIGNED);
+    }
+
+    /**
+     * Lee un número, entero o de punto flotante de 32 o 64 bits.
+     */
+    double readNumber() throws IOException {
+        int major = peekMajor();
+        if (major != CborOutput.MAJOR_SIMPLE) {
+            return readLong();
+        }
+        int info = initial & 0x1f;
+        initial = -1;
+        if (info == 26) {
+            return Float.intBitsToFloat((int) readUnsigned(4));
+        }
+        if (info == 27) {
+            return Double.longBitsToDouble(readUnsigned(8));
+        }
+        throw new IOException("Se esperaba un número CBOR");
+    }
+
+    String readText() throws IOException {
+        long length = readHeader(CborOutput.MAJOR_TEXT);
+        if (length > MAX_TEXT_LENGTH) {
+            throw new IOException("Texto CBOR demasiado largo: " + length + " bytes");
+        }
+        int n = (int) length;
+        if (n <= limit - position) {
+            String text = new String(buffer, position, n, StandardCharsets.UTF_8);
+            position += n;
+            return text;
+        }
+        byte[] bytes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            bytes[i] = (byte) readByte();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Salta el siguiente elemento completo, incluyendo su contenido.
+     *
+     * @throws IOException si el elemento tiene más de {@link #MAX_DEPTH}
+     * niveles anidados.
+     */
+    void skip() throws IOException {
+        skip(0);
+    }
+
+    private void skip(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Elemento CBOR con más de " + MAX_DEPTH + " niveles anidados");
+        }
+        int major = peekMajor();
+        int info = initial & 0x1f;
+        if (major == CborOutput.MAJOR_SIMPLE) {
+            initial = -1;
+            skipBytes(info == 25 ? 2 : info == 26 ? 4 : info == 27 ? 8 : info == 24 ? 1 : 0);
+            return;
+        }
+        long argument = readHeader(major);
+        switch (major) {
+            case CborOutput.MAJOR_BYTES:
+            case CborOutput.MAJOR_TEXT:
+                skipBytes(argument);
+                break;
+            case CborOutput.MAJOR_ARRAY:
+                for (long i = 0; i < argument; i++) {
+                    skip(depth + 1);
+                }
+                break;
+            case CborOutput.MAJOR_MAP:
+                for (long i = 0; i < argument; i++) {
+                    skip(depth + 1);
+                    skip(depth + 1);
+                }
+                break;
+            case CborOutput.MAJOR_TAG:
+                skip(depth + 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long readHeader(int expectedMajor) throws IOException {
+        int major = peekMajor();
+        int info = initial & 0x1f;
+        initial = -1;
+        if (major != expectedMajor) {
+            throw new IOException("Se esperaba el tipo CBOR " + expectedMajor + " y llegó el " + major);
+        }
+        if (info < 24) {
+            return info;
+        }
+        switch (info) {
+            case 24:
+                return readUnsigned(1);
+            case 25:
+                return readUnsigned(2);
+            case 26:
+                return readUnsigned(4);
+            case 27:
+                long value = readUnsigned(8);
+                if (value < 0) {
+                    throw new IOException("Entero CBOR mayor que " + Long.MAX_VALUE);
+                }
+                return value;
+            default:
+                throw new IOException("Elemento CBOR no soportado: " + info);
+        }
+    }
+
+    private long readUnsigned(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    private void skipBytes(long bytes) throws IOException {
+        for (long i = 0; i < bytes; i++) {
+            readByte();
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                throw new EOFException("El cuerpo CBOR terminó antes de tiempo");
+            }
+        }
+        return buffer[position++] & 0xff;
+    }
+}
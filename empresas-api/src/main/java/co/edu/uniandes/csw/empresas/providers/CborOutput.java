@@ -0,0 +1,193 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.providers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor de CBOR (RFC 7049) con solo los tipos que usan las empresas.
+ *
+ * Escribe sobre un buffer propio y lo vacía en el flujo de salida cuando se
+ * llena, así que cada valor es una copia de unos pocos bytes sin llamadas al
+ * flujo.
+ *
+ * @author ISIS2603
+ */
+final class CborOutput {
+
+    static final int MAJOR_UNSIGNED = 0;
+
+    static final int MAJOR_NEGATIVE = 1;
+
+    static final int MAJOR_BYTES = 2;
+
+    static final int MAJOR_TEXT = 3;
+
+    static final int MAJOR_ARRAY = 4;
+
+    static final int MAJOR_MAP = 5;
+
+    static final int MAJOR_TAG = 6;
+
+    static final int MAJOR_SIMPLE = 7;
+
+    /**
+     * Etiqueta de una fecha como número de segundos desde 1970-01-01T00:00Z.
+     */
+    static final int TAG_EPOCH_SECONDS = 1;
+
+    /**
+     * Etiqueta de una fecha sin hora como número de días desde 1970-01-01
+     * (RFC 8943).
+     */
+    static final int TAG_EPOCH_DAYS = 100;
+
+    private final OutputStream out;
+
+    private final byte[] buffer = new byte[8192];
+
+    private int count;
+
+    CborOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeArrayHeader(int size) throws IOException {
+        writeHeader(MAJOR_ARRAY, size);
+    }
+
+    void writeMapHeader(int size) throws IOException {
+        writeHeader(MAJOR_MAP, size);
+    }
+
+    void writeTag(int tag) throws IOException {
+        writeHeader(MAJOR_TAG, tag);
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    void writeDouble(double value) throws IOException {
+        ensure(9);
+        buffer[count++] = (byte) (MAJOR_SIMPLE << 5 | 27);
+        putLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Escribe un texto. Los textos ASCII, que son la mayoría de las llaves y
+     * valores, se copian directamente al buffer sin pasar por un arreglo
+     * intermedio.
+     */
+    void writeText(String value) throws IOException {
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeHeader(MAJOR_TEXT, utf8.length);
+            writeRaw(utf8, 0, utf8.length);
+            return;
+        }
+        writeHeader(MAJOR_TEXT, length);
+        int i = 0;
+        while (i < length) {
+            if (count == buffer.length) {
+                drain();
+            }
+            int end = Math.min(length, i + buffer.length - count);
+            for (; i < end; i++) {
+                buffer[count++] = (byte) value.charAt(i);
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void writeHeader(int major, long value) throws IOException {
+        ensure(9);
+        int type = major << 5;
+        if (value < 24) {
+            buffer[count++] = (byte) (type | (int) value);
+        } else if (value <= 0xffL) {
+            buffer[count++] = (byte) (type | 24);
+            buffer[count++] = (byte) value;
+        } else if (value <= 0xffffL) {
+            buffer[count++] = (byte) (type | 25);
+            buffer[count++] = (byte) (value >> 8);
+            buffer[count++] = (byte) value;
+        } else if (value <= 0xffffffffL) {
+            buffer[count++] = (byte) (type | 26);
+            buffer[count++] = (byte) (value >> 24);
+            buffer[count++] = (byte) (value >> 16);
+            buffer[count++] = (byte) (value >> 8);
+            buffer[count++] = (byte) value;
+        } else {
+            buffer[count++] = (byte) (type | 27);
+            putLong(value);
+        }
+    }
+
+    private void putLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[count++] = (byte) (value >> shift);
+        }
+    }
+
+    private void writeRaw(byte[] bytes, int off, int len) throws IOException {
+        if (len > buffer.length - count) {
+            drain();
+            if (len > buffer.length) {
+                out.write(bytes, off, len);
+                return;
+            }
+        }
+        System.arraycopy(bytes, off, buffer, count, len);
+        count += len;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - count < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.cache.EmpresaCache;
+import co.edu.uniandes.csw.empresas.dtos.CacheStatsDTO;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Clase que implementa el recurso "cache", que permite consultar el estado del
+ * caché de empresas.
+ *
+ * @author ISIS2603
+ * @version 1.0
+ */
+@Path("/cache")
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+public class CacheResource {
+
+    @Inject
+    private EmpresaCache cache;
+
+    /**
+     * Devuelve los contadores de aciertos, fallos y descartes del caché de
+     * empresas.
+     *
+     * @return JSON {@link CacheStatsDTO} - Las estadísticas del caché.
+     */
+    @GET
+    public CacheStatsDTO getStats() {
+        return new CacheStatsDTO(cache);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.changes.EmpresaChange;
+import co.edu.uniandes.csw.empresas.changes.EmpresaChangeFeed;
+import co.edu.uniandes.csw.empresas.changes.EmpresaChanges;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Clase que implementa el recurso "empresas/changes", con los cambios de las
+ * empresas en formato Server-Sent Events.
+ *
+ * Cada petición es un long-poll: si hay cambios posteriores al último que
+ * conoce el cliente se responden de inmediato; si no, la petición espera hasta
+ * que llegue uno o pase el tiempo de espera. La respuesta termina después de
+ * enviar los cambios y el <code>EventSource</code> del cliente se vuelve a
+ * conectar solo, enviando en <code>Last-Event-ID</code> el número del último
+ * cambio que recibió. Así no hace falta la API de SSE de JAX-RS 2.1, que no
+ * está en Java EE 7.
+ *
+ * Cada cambio se envía como un evento <code>create</code>,
+ * <code>update</code> o <code>delete</code> cuyo id es el número del cambio
+ * y cuyos datos son un JSON con el número, el tipo, el id y la versión de la
+ * empresa. Si los cambios que siguen al del cliente ya no están en
+ * {@link EmpresaChangeFeed} se envía un evento <code>reset</code>: el cliente
+ * debe volver a consultar las empresas.
+ *
+ * Este recurso no tiene {@link co.edu.uniandes.csw.empresa.filters.RateLimited}
+ * porque las peticiones pasan casi todo el tiempo esperando sin usar la base de
+ * datos; el número de esperas lo limita {@link EmpresaChangeFeed}.
+ *
+ * @author ISIS2603
+ * @version 1.0
+ */
+@Path("/empresas/changes")
+@Produces(EmpresaChangesResource.TEXT_EVENT_STREAM)
+@RequestScoped
+public class EmpresaChangesResource {
+
+    static final String TEXT_EVENT_STREAM = "text/event-stream";
+
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    /**
+     * Segundos que se espera por defecto un cambio nuevo.
+     */
+    static final int DEFAULT_WAIT_SECONDS = 25;
+
+    static final int MAX_WAIT_SECONDS = 60;
+
+    static final int DEFAULT_LIMIT = 100;
+
+    static final int MAX_LIMIT = 1000;
+
+    /**
+     * Milisegundos que el cliente espera antes de volver a conectarse.
+     */
+    static final int RETRY_MILLIS = 1000;
+
+    @Inject
+    private EmpresaChangeFeed feed;
+
+    /**
+     * Devuelve los cambios de las empresas posteriores a uno dado, esperando
+     * si todavía no hay ninguno.
+     *
+     * @param since Número del último cambio que el cliente conoce. Si no se
+     * envía ni este parámetro ni <code>Last-Event-ID</code>, solo se devuelven
+     * los cambios que lleguen desde ahora.
+     * @param lastEventId Encabezado que envía el <code>EventSource</code> al
+     * reconectarse; tiene prioridad sobre since.
+     * @param wait Segundos que se espera un cambio si no hay ninguno. Por
+     * defecto {@link #DEFAULT_WAIT_SECONDS}; 0 para no esperar.
+     * @param limit Número máximo de cambios de la respuesta.
+     * @param async Respuesta asíncrona: text/event-stream con los cambios.
+     * @throws WebApplicationException {@link co.edu.uniandes.csw.empresa.mappers.WebApplicationExceptionMapper}
+     * - Error que se genera cuando los parámetros no son válidos.
+     */
+    @GET
+    public void changes(@QueryParam("since") Long since, @HeaderParam(LAST_EVENT_ID) String lastEventId,
+            @QueryParam("wait") Integer wait, @QueryParam("limit") Integer limit, @Suspended AsyncResponse async) {
+        long after = after(since, lastEventId);
+        int waitSeconds = bounded("wait", wait, DEFAULT_WAIT_SECONDS, 0, MAX_WAIT_SECONDS);
+        int max = bounded("limit", limit, DEFAULT_LIMIT, 1, MAX_LIMIT);
+        EmpresaChanges changes = feed.read(after, max);
+        if (waitSeconds == 0 || changes.isReset() || !changes.getChanges().isEmpty()) {
+            async.resume(toResponse(after, changes));
+            return;
+        }
+        Waiter waiter = new Waiter(after, max, async);
+        async.setTimeout(waitSeconds, TimeUnit.SECONDS);
+        async.setTimeoutHandler(timedOut -> {
+            feed.cancel(waiter);
+            timedOut.resume(toResponse(after, feed.read(after, max)));
+        });
+        if (!feed.await(waiter)) {
+            async.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, EmpresaResource.RETRY_AFTER_SECONDS)
+                    .entity("Hay demasiados clientes esperando cambios.")
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .build());
+            return;
+        }
+        // Un cambio registrado entre la primera lectura y la espera no despertaría a esta petición.
+        changes = feed.read(after, max);
+        if (changes.isReset() || !changes.getChanges().isEmpty()) {
+            feed.cancel(waiter);
+            async.resume(toResponse(after, changes));
+        }
+    }
+
+    private long after(Long since, String lastEventId) {
+        if (lastEventId != null && !lastEventId.trim().isEmpty()) {
+            try {
+                return Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new WebApplicationException("El encabezado " + LAST_EVENT_ID + " no es válido.", 400);
+            }
+        }
+        if (since != null) {
+            if (since < 0) {
+                throw new WebApplicationException("El parámetro since no puede ser negativo.", 400);
+            }
+            return since;
+        }
+        return feed.getLatest();
+    }
+
+    private static int bounded(String name, Integer value, int defaultValue, int min, int max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value < min || value > max) {
+            throw new WebApplicationException("El parámetro " + name + " debe estar entre " + min + " y " + max + ".", 400);
+        }
+        return value;
+    }
+
+    /**
+     * Escribe los cambios en el formato de Server-Sent Events.
+     *
+     * @param after Número del último cambio que conocía el cliente. Si no hay
+     * cambios se envía como <code>id</code> para que el
+     * <code>EventSource</code> se reconecte desde ahí y no pierda los cambios
+     * que lleguen mientras tanto.
+     * @param changes Cambios leídos.
+     */
+    static Response toResponse(long after, EmpresaChanges changes) {
+        StringBuilder sb = new StringBuilder(64 + changes.getChanges().size() * 128);
+        sb.append("retry: ").append(RETRY_MILLIS).append("\n\n");
+        if (changes.isReset()) {
+            sb.append("id: ").append(changes.getLatest()).append('\n')
+                    .append("event: reset\n")
+                    .append("data: {\"latest\":").append(changes.getLatest()).append("}\n\n");
+        } else if (changes.getChanges().isEmpty()) {
+            // Un id sin data no genera un evento, pero el cliente lo guarda como Last-Event-ID.
+            sb.append("id: ").append(after).append("\n\n");
+        }
+        for (EmpresaChange change : changes.getChanges()) {
+            sb.append("id: ").append(change.getSequence()).append('\n')
+                    .append("event: ").append(change.getType().name().toLowerCase(Locale.ROOT)).append('\n')
+                    .append("data: {\"seq\":").append(change.getSequence())
+                    .append(",\"type\":\"").append(change.getType().name())
+                    .append("\",\"id\":").append(change.getEmpresaId());
+            if (change.getVersion() != null) {
+                sb.append(",\"version\":").append(change.getVersion());
+            }
+            sb.append(",\"timestamp\":").append(change.getTimestamp()).append("}\n\n");
+        }
+        CacheControl noCache = new CacheControl();
+        noCache.setNoCache(true);
+        return Response.ok(sb.toString(), TEXT_EVENT_STREAM + ";charset=utf-8").cacheControl(noCache).build();
+    }
+
+    /**
+     * Espera de una petición. Se ejecuta en los hilos de
+     * {@link EmpresaChangeFeed} cuando llega un cambio; si el cambio aún no se puede leer vuelve a esperar.
+     */
+    private final class Waiter implements Runnable {
+
+        private final long after;
+
+        private final int max;
+
+        private final AsyncResponse async;
+
+        Waiter(long after, int max, AsyncResponse async) {
+            this.after = after;
+            this.max = max;
+            this.async = async;
+        }
+
+        @Override
+        public void run() {
+            if (async.isDone()) {
+                return;
+            }
+            EmpresaChanges changes = feed.read(after, max);
+            if (changes.isReset() || !changes.getChanges().isEmpty()) {
+                async.resume(toResponse(after, changes));
+            } else {
+                // Si no se puede volver a esperar, la petición termina por tiempo.
+                feed.await(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.adapters.DateAdapter;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import co.edu.uniandes.csw.empresas.ejb.EmpresaLogic;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Escribe todas las empresas como un arreglo JSON directamente sobre la
+ * respuesta HTTP.
+ *
+ * Las empresas se leen por bloques de {@link #CHUNK_SIZE} usando la paginación
+ * por id de {@link EmpresaLogic#getPage(Long, int)}, y cada bloque se escribe
+ * antes de pedir el siguiente. Así la memoria usada no depende del número de
+ * empresas y el cliente recibe los primeros bytes sin esperar a que termine la
+ * consulta.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaExportOutput implements StreamingOutput {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaExportOutput.class.getName());
+
+    /**
+     * Número de empresas que se leen de la base de datos en cada consulta.
+     */
+    static final int CHUNK_SIZE = Integer.getInteger("empresas.export.chunkSize", 500);
+
+    private final EmpresaLogic empresaLogic;
+
+    /**
+     * Constructor.
+     *
+     * @param empresaLogic Lógica desde la que se leen las empresas.
+     */
+    public EmpresaExportOutput(EmpresaLogic empresaLogic) {
+        this.empresaLogic = empresaLogic;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        long count = 0;
+        try (JsonGenerator generator = Json.createGenerator(output)) {
+            generator.writeStartArray();
+            Long afterId = null;
+            List<EmpresaEntity> chunk;
+            do {
+                chunk = empresaLogic.getPage(afterId, CHUNK_SIZE);
+                for (EmpresaEntity entity : chunk) {
+                    write(generator, new EmpresaDTO(entity));
+                    afterId = entity.getId();
+                }
+                count += chunk.size();
+                // Se envía el bloque al cliente antes de consultar el siguiente.
+                generator.flush();
+            } while (chunk.size() == CHUNK_SIZE);
+            generator.writeEnd();
+        }
+        LOGGER.log(Level.INFO, "Exportación terminada: {0} empresas", count);
+    }
+
+    /**
+     * Escribe una empresa como objeto JSON con los mismos nombres de atributos
+     * que usa {@link EmpresaDTO}. Los atributos nulos se omiten.
+     *
+     * @param generator Generador sobre el que se escribe.
+     * @param empresa Empresa a escribir.
+     */
+    private void write(JsonGenerator generator, EmpresaDTO empresa) {
+        generator.writeStartObject();
+        if (empresa.getId() != null) {
+            generator.write("id", empresa.getId());
+        }
+        writeString(generator, "empresa", empresa.getEmpresa());
+        writeString(generator, "ciudad", empresa.getCiudad());
+        writeString(generator, "image", empresa.getImage());
+        writeString(generator, "aniocreacion", DateAdapter.format(empresa.getAniocreacion()));
+        if (empresa.getVersion() != null) {
+            generator.write("version", empresa.getVersion());
+        }
+        if (empresa.getLastModified() != null) {
+            Calendar lastModified = Calendar.getInstance();
+            lastModified.setTime(empresa.getLastModified());
+            generator.write("lastModified", DatatypeConverter.printDateTime(lastModified));
+        }
+        generator.writeEnd();
+    }
+
+    private static void writeString(JsonGenerator generator, String name, String value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+}
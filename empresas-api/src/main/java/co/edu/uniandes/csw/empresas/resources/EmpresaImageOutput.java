@@ -0,0 +1,74 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Escribe un archivo del almacén de imágenes en la respuesta HTTP.
+ *
+ * Los bytes se pasan con {@link FileChannel#transferTo} por bloques pequeños,
+ * sin leer el archivo completo a un arreglo en el heap. No es una copia sin
+ * pasar por el proceso (sendfile): el servidor no expone el socket y el
+ * destino es el flujo de la respuesta envuelto con
+ * {@link Channels#newChannel(OutputStream)}, así que la JVM lee cada bloque
+ * del archivo a un buffer y lo escribe en el flujo.
+ *
+ * @author ISIS2603
+ */
+class EmpresaImageOutput implements StreamingOutput {
+
+    private final Path path;
+
+    /**
+     * @param path archivo de la imagen.
+     */
+    EmpresaImageOutput(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(output);
+            long size = file.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = file.transferTo(position, size - position, target);
+                if (transferred <= 0) {
+                    // El archivo se acortó mientras se enviaba.
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+}
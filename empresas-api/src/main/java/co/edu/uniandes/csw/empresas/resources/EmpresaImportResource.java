@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaImportSummaryDTO;
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportFormat;
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportService;
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportSummary;
+import co.edu.uniandes.csw.empresa.mappers.WebApplicationExceptionMapper;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Clase que implementa el recurso "empresas/import", para crear muchas
+ * empresas a partir de un archivo CSV o NDJSON.
+ *
+ * El cuerpo de la petición se lee a medida que llega y se importa con
+ * {@link EmpresaImportService}: las filas se interpretan en paralelo y se
+ * guardan en grupos, cada uno en su propia transacción. La respuesta llega al
+ * terminar la importación. No pasa por el límite de peticiones de
+ * {@link EmpresaResource}: el servicio solo admite unas pocas importaciones a
+ * la vez y responde 503 a las demás.
+ *
+ * @author ISIS2603
+ * @version 1.0
+ */
+@Path("/empresas/import")
+@Consumes({"text/csv", "application/x-ndjson", "application/jsonl"})
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+public class EmpresaImportResource {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaImportResource.class.getName());
+
+    @Inject
+    private EmpresaImportService importService;
+
+    /**
+     * Importa las empresas del cuerpo de la petición.
+     *
+     * Con <code>Content-Type: text/csv</code> el cuerpo es un CSV con
+     * encabezado; con <code>application/x-ndjson</code>, un objeto JSON por
+     * línea. En los dos casos los atributos son los de {@link EmpresaDTO} y la
+     * codificación es la del parámetro charset, UTF-8 por defecto.
+     *
+     * @param body Cuerpo de la petición.
+     * @param headers Encabezados de la petición.
+     * @return JSON {@link EmpresaImportSummaryDTO} - Cuántas filas se
+     * importaron, cuántas fallaron y los primeros errores. Las filas con
+     * error no detienen la importación; si se detuvo por otro motivo,
+     * completed es false y los grupos ya guardados se quedan.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error que se genera cuando la codificación no es válida o ya hay
+     * demasiadas importaciones en curso.
+     */
+    @POST
+    public Response importEmpresas(InputStream body, @Context HttpHeaders headers) {
+        MediaType type = headers.getMediaType();
+        EmpresaImportFormat format = EmpresaImportFormat.ofMediaType(type == null ? null : type.toString());
+        if (format == null) {
+            throw new WebApplicationException("El tipo de contenido debe ser text/csv o application/x-ndjson.", 415);
+        }
+        Reader reader = new InputStreamReader(body, charsetOf(type));
+        LOGGER.log(Level.INFO, "Resource importEmpresas: input: {0}", format);
+        EmpresaImportSummary summary;
+        try {
+            summary = importService.importEmpresas(reader, format);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException("La importación fue interrumpida.", 503);
+        }
+        if (summary == null) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, EmpresaResource.RETRY_AFTER_SECONDS)
+                    .entity("Ya hay una importación en curso.")
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .build();
+        }
+        return Response.ok(new EmpresaImportSummaryDTO(summary)).build();
+    }
+
+    private static Charset charsetOf(MediaType type) {
+        String charset = type.getParameters().get(MediaType.CHARSET_PARAMETER);
+        if (charset == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(charset);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new WebApplicationException("La codificación " + charset + " no es válida.", 415);
+        }
+    }
+}
@@ -24,10 +24,29 @@ SOFTWARE.
 package co.edu.uniandes.csw.empresas.resources;
 
 import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaSearchHitDTO;
+import co.edu.uniandes.csw.empresas.ejb.EmpresaExecutor;
 import co.edu.uniandes.csw.empresas.ejb.EmpresaLogic;
 import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
 import co.edu.uniandes.csw.empresas.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaField;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaFilter;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaVersion;
+import co.edu.uniandes.csw.empresas.providers.CborEmpresaProvider;
+import co.edu.uniandes.csw.empresas.search.EmpresaSearchHit;
+import co.edu.uniandes.csw.empresas.search.EmpresaSearchIndex;
+import co.edu.uniandes.csw.empresas.search.EmpresaSearchResult;
+import co.edu.uniandes.csw.empresa.filters.RateLimited;
+import co.edu.uniandes.csw.empresa.filters.RowCounted;
+import co.edu.uniandes.csw.empresa.mappers.BusinessLogicExceptionMapper;
 import co.edu.uniandes.csw.empresa.mappers.WebApplicationExceptionMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.file.Files;
 import java.util.List;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
@@ -38,8 +57,35 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.enterprise.context.RequestScoped;
@@ -48,68 +94,423 @@ import javax.ws.rs.WebApplicationException;
 /**
  * Clase que implementa el recurso "empresas".
  *
+ * Los recursos reciben y devuelven JSON o, si el cliente lo pide en
+ * <code>Content-Type</code> y <code>Accept</code>, CBOR
+ * ({@link CborEmpresaProvider}).
+ *
+ * Las respuestas de GET /empresas y GET /empresas/{id} se guardan
+ * serializadas en {@link EmpresaResponseCache}; una petición que encuentra su
+ * respuesta allí se responde sin consultar la lógica ni la base de datos.
+ *
  * @empresa ISIS2603
  * @version 1.0
  */
 @Path("/empresas")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, CborEmpresaProvider.APPLICATION_CBOR})
+@Produces({MediaType.APPLICATION_JSON, CborEmpresaProvider.APPLICATION_CBOR_LOW_QUALITY})
 @RequestScoped
+@RateLimited
 public class EmpresaResource {
 
     private static final Logger LOGGER = Logger.getLogger(EmpresaResource.class.getName());
 
+    /**
+     * Tamaño de página que se usa cuando el cliente no envía limit.
+     */
+    static final int DEFAULT_PAGE_SIZE = Integer.getInteger("empresas.page.defaultSize", 50);
+
+    /**
+     * Tamaño máximo de página que acepta el servidor, sin importar el limit
+     * que pida el cliente.
+     */
+    static final int MAX_PAGE_SIZE = Integer.getInteger("empresas.page.maxSize", 200);
+
+    /**
+     * Número máximo de empresas que se aceptan en POST /empresas/batch.
+     */
+    static final int MAX_BATCH_SIZE = Integer.getInteger("empresas.batch.maxSize", 10000);
+
+    /**
+     * Encabezado con el cursor de la página siguiente.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Encabezado con el número total de resultados de una búsqueda.
+     */
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /**
+     * Tiempo que los clientes pueden guardar una imagen pedida con su hash.
+     */
+    static final int IMAGE_MAX_AGE_SECONDS = 365 * 24 * 60 * 60;
+
+    /**
+     * Tiempo máximo en milisegundos que una consulta asíncrona puede esperar
+     * en la cola y ejecutarse antes de responder 503.
+     */
+    static final long ASYNC_TIMEOUT_MILLIS = Long.getLong("empresas.async.timeoutMillis", 10000L);
+
+    /**
+     * Segundos que se sugiere esperar en <code>Retry-After</code> cuando se
+     * responde 503.
+     */
+    static final int RETRY_AFTER_SECONDS = Integer.getInteger("empresas.async.retryAfterSeconds", 1);
+
+    /**
+     * Tipos de respuesta de las consultas, en el orden y con la calidad de
+     * {@link Produces}.
+     */
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+            MediaType.valueOf(CborEmpresaProvider.APPLICATION_CBOR_LOW_QUALITY)).build();
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
     @Inject
     private EmpresaLogic empresaLogic;
 
+    @Inject
+    private EmpresaExecutor executor;
+
+    @Inject
+    private EmpresaResponseCache responseCache;
+
+    @Inject
+    private EmpresaSearchIndex searchIndex;
+
+    @Context
+    private Providers providers;
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Context
+    private HttpHeaders headers;
+
     /**
      * Crea un nuevo autor con la informacion que se recibe en el cuerpo de la
      * petición y se regresa un objeto identico con un id auto-generado por la
      * base de datos.
      *
+     * Si la imagen llega como data URI en base64 se guarda en el almacén de
+     * imágenes y la respuesta trae la URL de {@link #getImage}.
+     *
+     * @param empresa {@link EmpresaDTO} - La empresa que se desea guardar.
+     * @return JSON {@link EmpresaDTO} - La empresa guardada con su id.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} -
+     * Error de lógica que se genera cuando la imagen no es un data URI válido.
      */
     @POST
-    public EmpresaDTO create(EmpresaDTO empresa) {
-        LOGGER.log(Level.INFO, "Resource create: input: {0}", empresa.toString());
+    public EmpresaDTO create(EmpresaDTO empresa) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Resource create: input: {0}", empresa);
         EmpresaDTO empresaDTO = new EmpresaDTO(empresaLogic.create(empresa.toEntity()));
-        LOGGER.log(Level.INFO, "Resource create: output: {0}", empresaDTO.toString());
+        LOGGER.log(Level.FINE, "Resource create: output: {0}", empresaDTO);
         return empresaDTO;
     }
 
     /**
-     * Busca y devuelve todos los autores que existen en la aplicacion.
+     * Crea varias empresas con la información que se recibe en el cuerpo de la
+     * petición. Todas se crean en una sola transacción: si alguna falla no se
+     * crea ninguna.
+     *
+     * @param empresas JSONArray {@link EmpresaDTO} - Las empresas a crear. No
+     * pueden ser más de {@link #MAX_BATCH_SIZE}.
+     * @return JSONArray {@link EmpresaDTO} - Las empresas creadas con su id, en
+     * el mismo orden en que se recibieron.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error que se genera cuando la lista está vacía o es demasiado grande.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} -
+     * Error de lógica que se genera cuando alguna imagen no es un data URI
+     * válido.
+     */
+    @POST
+    @Path("batch")
+    public List<EmpresaDTO> createAll(List<EmpresaDTO> empresas) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Resource createAll: input: {0} empresas", empresas == null ? 0 : empresas.size());
+        if (empresas == null || empresas.isEmpty()) {
+            throw new WebApplicationException("La lista de empresas está vacía.", 400);
+        }
+        if (empresas.size() > MAX_BATCH_SIZE) {
+            throw new WebApplicationException("No se pueden crear más de " + MAX_BATCH_SIZE + " empresas en una petición.", 413);
+        }
+        List<EmpresaEntity> entities = new ArrayList<>(empresas.size());
+        for (EmpresaDTO empresa : empresas) {
+            entities.add(empresa.toEntity());
+        }
+        List<EmpresaDTO> created = listEntity2DTO(empresaLogic.createAll(entities));
+        LOGGER.log(Level.FINE, "Resource createAll: output: {0} empresas", created.size());
+        return created;
+    }
+
+    /**
+     * Busca y devuelve una página de las empresas que existen en la
+     * aplicacion, ordenadas por id. Opcionalmente se pueden filtrar por
+     * ciudad, prefijo del nombre y rango del año de creación; los filtros se
+     * aplican en la base de datos.
+     *
+     * Si hay más empresas después de la página, la respuesta incluye el
+     * encabezado <code>X-Next-Cursor</code> y un encabezado <code>Link</code>
+     * con <code>rel="next"</code> que apunta a la página siguiente.
+     *
+     * La respuesta incluye <code>ETag</code>, pero no
+     * <code>Last-Modified</code>, que no cambiaría al borrar una empresa de
+     * la página. Si la petición trae <code>If-None-Match</code> y la página
+     * no ha cambiado, se responde 304 consultando solo las versiones de las
+     * empresas.
+     *
+     * Con el parámetro <code>fields</code> solo se consultan en la base de
+     * datos y se escriben en el JSON los atributos pedidos (además del id).
+     *
+     * @param ciudad Ciudad exacta de las empresas.
+     * @param empresa Prefijo del nombre de las empresas. Distingue mayúsculas.
+     * @param anioDesde Primer año de creación incluido.
+     * @param anioHasta Último año de creación incluido.
+     * @param after Cursor opaco devuelto en <code>X-Next-Cursor</code> por la
+     * página anterior. Si no se envía se devuelve la primera página.
+     * @param limit Número máximo de empresas de la página. No puede superar
+     * {@link #MAX_PAGE_SIZE}.
+     * @param fields Atributos que se devuelven, separados por comas. Si no se
+     * envía se devuelven todos.
+     * @param request Petición, usada para evaluar las precondiciones.
+     * @param async Respuesta asíncrona: la consulta se hace en
+     * {@link EmpresaExecutor} y la respuesta es JSONArray {@link EmpresaDTO} -
+     * Las empresas de la página. Si no hay ninguna es una lista vacía.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error que se genera cuando el cursor, el límite, el rango de años o los
+     * atributos no son válidos.
+     */
+    @GET
+    public void gets(@QueryParam("ciudad") String ciudad, @QueryParam("empresa") String empresa,
+            @QueryParam("anioDesde") Integer anioDesde, @QueryParam("anioHasta") Integer anioHasta,
+            @QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("fields") String fields, @Context Request request, @Suspended AsyncResponse async) {
+        EmpresaFilter filter = new EmpresaFilter(ciudad, empresa, anioDesde, anioHasta);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Resource gets: input: {0} , after: {1} , limit: {2}", new Object[]{filter, after, limit});
+        }
+        checkAnio("anioDesde", anioDesde);
+        checkAnio("anioHasta", anioHasta);
+        if (anioDesde != null && anioHasta != null && anioDesde > anioHasta) {
+            throw new WebApplicationException("El parámetro anioDesde no puede ser mayor que anioHasta.", 400);
+        }
+        int pageSize = pageSize(limit);
+        Long afterId = decodeCursor(after);
+        Set<EmpresaField> projection = parseFields(fields);
+        // Los encabezados y la URI se leen en el hilo HTTP; los proxies de @Context no sirven en otros hilos.
+        // Las páginas solo se validan con el ETag.
+        boolean conditional = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null;
+        URI requestUri = uriInfo.getRequestUri();
+        MediaType mediaType = responseType(request);
+        String key = EmpresaResponseCache.keyOf(requestUri.toString(), mediaType);
+        if (resumeFromCache(key, request, async)) {
+            return;
+        }
+        long generation = responseCache.getGeneration();
+        submit(async, () -> cache(key, generation, null, mediaType,
+                page(filter, afterId, pageSize, projection, mediaType, conditional, requestUri, request)));
+    }
+
+    /**
+     * Consulta una página de empresas y construye la respuesta de
+     * {@link #gets}. Se ejecuta en {@link EmpresaExecutor}.
+     */
+    private Response page(EmpresaFilter filter, Long afterId, int pageSize, Set<EmpresaField> projection,
+            MediaType mediaType, boolean conditional, URI requestUri, Request request) {
+        if (conditional) {
+            EmpresaTags tags = EmpresaTags.ofVersions(empresaLogic.getPageVersions(filter, afterId, pageSize + 1), pageSize);
+            Response.ResponseBuilder notModified = evaluatePreconditions(request, null, tagOf(tags.getEntityTag(), projection, mediaType));
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+        // Se pide un elemento de más para saber si existe una página siguiente sin hacer otra consulta.
+        List<EmpresaEntity> entities = projection == null
+                ? empresaLogic.getPage(filter, afterId, pageSize + 1)
+                : empresaLogic.getPage(filter, afterId, pageSize + 1, projection);
+        EmpresaTags tags = EmpresaTags.ofEntities(entities, pageSize);
+        boolean hasNext = entities.size() > pageSize;
+        if (hasNext) {
+            entities = entities.subList(0, pageSize);
+        }
+        List<EmpresaDTO> listas = listEntity2DTO(entities, projection);
+        LOGGER.log(Level.FINE, "Resource gets: output: {0} empresas", listas.size());
+        Response.ResponseBuilder response = Response.ok(new GenericEntity<List<EmpresaDTO>>(listas) {
+        }).tag(tagOf(tags.getEntityTag(), projection, mediaType)).header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (hasNext) {
+            String cursor = encodeCursor(entities.get(pageSize - 1).getId());
+            response.header(NEXT_CURSOR_HEADER, cursor)
+                    .links(Link.fromUriBuilder(UriBuilder.fromUri(requestUri).replaceQueryParam("after", cursor)).rel("next").build());
+        }
+        return response.build();
+    }
+
+    /**
+     * Busca empresas por nombre o ciudad, aunque la búsqueda sea parcial o
+     * tenga errores de escritura, en {@link EmpresaSearchIndex}. No se
+     * consulta la base de datos.
+     *
+     * La respuesta incluye el encabezado <code>X-Total-Count</code> con el
+     * número de empresas que coinciden, en todas las páginas.
+     *
+     * @param q Texto a buscar. No distingue mayúsculas ni tildes.
+     * @param offset Número de resultados que se saltan. Por defecto 0.
+     * @param limit Número máximo de resultados. No puede superar
+     * {@link #MAX_PAGE_SIZE}.
+     * @return JSONArray {@link EmpresaSearchHitDTO} - Las empresas
+     * encontradas, de mayor a menor puntaje.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error que se genera cuando falta q o el offset o el límite no son
+     * válidos.
+     */
+    @GET
+    @Path("search")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response search(@QueryParam("q") String q, @QueryParam("offset") Integer offset, @QueryParam("limit") Integer limit) {
+        if (q == null || q.trim().isEmpty()) {
+            throw new WebApplicationException("El parámetro q es obligatorio.", 400);
+        }
+        if (offset != null && offset < 0) {
+            throw new WebApplicationException("El parámetro offset no puede ser negativo.", 400);
+        }
+        EmpresaSearchResult result = searchIndex.search(q, offset == null ? 0 : offset, pageSize(limit));
+        List<EmpresaSearchHitDTO> hits = new ArrayList<>(result.getHits().size());
+        for (EmpresaSearchHit hit : result.getHits()) {
+            hits.add(new EmpresaSearchHitDTO(hit));
+        }
+        return Response.ok(new GenericEntity<List<EmpresaSearchHitDTO>>(hits) {
+        }).header(TOTAL_COUNT_HEADER, result.getTotal()).build();
+    }
+
+    /**
+     * Devuelve todas las empresas de la aplicación como un único arreglo JSON.
+     *
+     * A diferencia de {@link #gets}, la respuesta no está
+     * paginada: las empresas se leen por bloques y se escriben en la respuesta a
+     * medida que llegan, sin construir la lista completa en memoria.
      *
-     * @return JSONArray {@link DetailDTO} - Los autores encontrados en la
-     * aplicación. Si no hay ninguno retorna una lista vacía.
+     * @return JSONArray {@link EmpresaDTO} - Todas las empresas encontradas en
+     * la aplicación. Si no hay ninguna retorna una lista vacía.
      */
     @GET
-    public List<EmpresaDTO> gets() {
-        LOGGER.info("Resource gets: input: void");
-        List<EmpresaDTO> listas = listEntity2DTO(empresaLogic.gets());
-        LOGGER.log(Level.INFO, "Resource gets: output: {0}", listas.toString());
-        return listas;
+    @Path("export")
+    public Response export() {
+        LOGGER.fine("Resource export: input: void");
+        return Response.ok(new EmpresaExportOutput(empresaLogic), MediaType.APPLICATION_JSON_TYPE).build();
     }
 
     /**
      * Busca el autor con el id asociado recibido en la URL y lo devuelve.
      *
+     * La respuesta incluye <code>ETag</code> y <code>Last-Modified</code>. Si
+     * la petición trae <code>If-None-Match</code> o
+     * <code>If-Modified-Since</code> y la empresa no ha cambiado, se responde
+     * 304 consultando solo su versión.
+     *
      * @param empresasId Identificador del autor que se esta buscando. Este debe
      * ser una cadena de dígitos.
-     * @return JSON {@link EmpresaDTO} - El autor buscado
+     * @param fields Atributos que se devuelven, separados por comas. Si no se
+     * envía se devuelven todos.
+     * @param request Petición, usada para evaluar las precondiciones.
+     * @param async Respuesta asíncrona: la consulta se hace en
+     * {@link EmpresaExecutor} y la respuesta es JSON {@link EmpresaDTO} - El
+     * autor buscado
      * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
-     * Error de lógica que se genera cuando no se encuentra el autor.
+     * Error de lógica que se genera cuando no se encuentra el autor o los
+     * atributos no son válidos.
      */
     @GET
     @Path("{empresasId: \\d+}")
-    public EmpresaDTO get(@PathParam("empresasId") Long empresasId) {
-        LOGGER.log(Level.INFO, "Resource get: input: {0}", empresasId);
-        EmpresaEntity empresaEntity = empresaLogic.get(empresasId);
+    public void get(@PathParam("empresasId") Long empresasId, @QueryParam("fields") String fields,
+            @Context Request request, @Suspended AsyncResponse async) {
+        LOGGER.log(Level.FINE, "Resource get: input: {0}", empresasId);
+        Set<EmpresaField> projection = parseFields(fields);
+        boolean conditional = isConditional();
+        MediaType mediaType = responseType(request);
+        String key = EmpresaResponseCache.keyOf(uriInfo.getRequestUri().toString(), mediaType);
+        if (resumeFromCache(key, request, async)) {
+            return;
+        }
+        long generation = responseCache.getGeneration();
+        submit(async, () -> cache(key, generation, empresasId, mediaType, detail(empresasId, projection, mediaType, conditional, request)));
+    }
+
+    /**
+     * Consulta una empresa y construye la respuesta de {@link #get}. Se
+     * ejecuta en {@link EmpresaExecutor}.
+     */
+    private Response detail(Long empresasId, Set<EmpresaField> projection, MediaType mediaType, boolean conditional, Request request) {
+        if (conditional) {
+            EmpresaVersion version = empresaLogic.getVersion(empresasId);
+            if (version == null) {
+                throw new WebApplicationException("El recurso /empresas/" + empresasId + " no existe.", 404);
+            }
+            Response.ResponseBuilder notModified = evaluatePreconditions(request, version.getLastModified(),
+                    tagOf(EmpresaTags.of(empresasId, version.getVersion()), projection, mediaType));
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+        EmpresaEntity empresaEntity = projection == null ? empresaLogic.get(empresasId) : empresaLogic.get(empresasId, projection);
         if (empresaEntity == null) {
             throw new WebApplicationException("El recurso /empresas/" + empresasId + " no existe.", 404);
         }
-        EmpresaDTO detailDTO = new EmpresaDTO(empresaEntity);
-        LOGGER.log(Level.INFO, "Resource get: output: {0}", detailDTO);
-        return detailDTO;
+        EmpresaDTO detailDTO = projection == null ? new EmpresaDTO(empresaEntity) : new EmpresaDTO(empresaEntity, projection);
+        LOGGER.log(Level.FINE, "Resource get: output: {0}", detailDTO);
+        return Response.ok(detailDTO)
+                .tag(tagOf(EmpresaTags.of(empresasId, empresaEntity.getVersion()), projection, mediaType))
+                .lastModified(empresaEntity.getLastModified())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    /**
+     * Devuelve los bytes de la imagen de una empresa guardada en el almacén de
+     * imágenes.
+     *
+     * Las URL que entrega {@link EmpresaDTO} incluyen el hash de la imagen en
+     * el parámetro <code>v</code>. Cuando ese hash coincide con la imagen
+     * actual, el contenido de la URL no puede cambiar y la respuesta se marca
+     * como inmutable por un año; sin el parámetro, o con uno viejo, el cliente
+     * debe revalidar con el <code>ETag</code>.
+     *
+     * @param empresasId Identificador de la empresa. Este debe ser una cadena
+     * de dígitos.
+     * @param hash Hash de la imagen que el cliente espera, o null.
+     * @param request Petición, usada para evaluar las precondiciones.
+     * @return Los bytes de la imagen.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error de lógica que se genera cuando la empresa no existe o no tiene una
+     * imagen en el almacén.
+     * @throws IOException Si no se puede leer el archivo de la imagen.
+     */
+    @GET
+    @Path("{empresasId: \\d+}/image")
+    @Produces(MediaType.WILDCARD)
+    public Response getImage(@PathParam("empresasId") Long empresasId, @QueryParam("v") String hash, @Context Request request) throws IOException {
+        LOGGER.log(Level.FINE, "Resource getImage: input: {0}", empresasId);
+        java.nio.file.Path image = empresaLogic.getImage(empresasId);
+        if (image == null) {
+            throw new WebApplicationException("El recurso /empresas/" + empresasId + "/image no existe.", 404);
+        }
+        String current = image.getFileName().toString();
+        EntityTag tag = new EntityTag(current);
+        CacheControl cacheControl = new CacheControl();
+        if (current.equals(hash)) {
+            cacheControl.setMaxAge(IMAGE_MAX_AGE_SECONDS);
+            cacheControl.getCacheExtension().put("immutable", null);
+        } else {
+            cacheControl.setNoCache(true);
+        }
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).cacheControl(cacheControl).build();
+        }
+        return Response.ok(new EmpresaImageOutput(image), EmpresaImageStore.contentType(image))
+                .tag(tag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.CONTENT_LENGTH, Files.size(image))
+                .header("X-Content-Type-Options", "nosniff")
+                .build();
     }
 
     /**
@@ -118,38 +519,341 @@ public class EmpresaResource {
      *
      * @param empresasId Identificador del autor que se desea actualizar. Este
      * debe ser una cadena de dígitos.
-     * @param empresa {@link DetailDTO} El autor que se desea guardar.
+     * @param empresa {@link DetailDTO} El autor que se desea guardar. Si trae
+     * version, debe ser la versión vigente de la empresa.
      * @return JSON {@link DetailDTO} - El autor guardado.
      * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
      * Error de lógica que se genera cuando no se encuentra el autor a
      * actualizar.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} -
+     * Error de lógica que se genera cuando la versión enviada no es la vigente.
      */
     @PUT
     @Path("{empresasId: \\d+}")
-    public EmpresaDTO update(@PathParam("empresasId") Long empresasId, EmpresaDTO empresa) {
-        LOGGER.log(Level.INFO, "Resource update: input: empresasId: {0} , empresa: {1}", new Object[]{empresasId, empresa.toString()});
+    public EmpresaDTO update(@PathParam("empresasId") Long empresasId, EmpresaDTO empresa) throws BusinessLogicException {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Resource update: input: empresasId: {0} , empresa: {1}", new Object[]{empresasId, empresa});
+        }
         empresa.setId(empresasId);
-        if (empresaLogic.get(empresasId) == null) {
+        EmpresaEntity updated = empresaLogic.update(empresasId, empresa.toEntity());
+        if (updated == null) {
+            throw new WebApplicationException("El recurso /empresas/" + empresasId + " no existe.", 404);
+        }
+        EmpresaDTO detailDTO = new EmpresaDTO(updated);
+        LOGGER.log(Level.FINE, "Resource update: output: {0}", detailDTO);
+        return detailDTO;
+    }
+
+    /**
+     * Actualiza solo los atributos de la empresa que vienen en el cuerpo de la
+     * petición; los atributos que no se envían (o son null) no cambian.
+     *
+     * @param empresasId Identificador de la empresa que se desea actualizar.
+     * Este debe ser una cadena de dígitos.
+     * @param empresa {@link EmpresaDTO} Los atributos que cambian. Si trae
+     * version, debe ser la versión vigente de la empresa.
+     * @return JSON {@link EmpresaDTO} - La empresa completa después del cambio.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error de lógica que se genera cuando no se encuentra la empresa a
+     * actualizar.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} -
+     * Error de lógica que se genera cuando la versión enviada no es la vigente.
+     */
+    @PATCH
+    @Path("{empresasId: \\d+}")
+    public EmpresaDTO patch(@PathParam("empresasId") Long empresasId, EmpresaDTO empresa) throws BusinessLogicException {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Resource patch: input: empresasId: {0} , empresa: {1}", new Object[]{empresasId, empresa});
+        }
+        EmpresaEntity updated = empresaLogic.patch(empresasId, empresa.toEntity());
+        if (updated == null) {
             throw new WebApplicationException("El recurso /empresas/" + empresasId + " no existe.", 404);
         }
-        EmpresaDTO detailDTO = new EmpresaDTO(empresaLogic.update(empresasId, empresa.toEntity()));
-        LOGGER.log(Level.INFO, "Resource update: output: {0}", detailDTO.toString());
+        EmpresaDTO detailDTO = new EmpresaDTO(updated);
+        LOGGER.log(Level.FINE, "Resource patch: output: {0}", detailDTO);
         return detailDTO;
     }
 
    
 
   
+    /**
+     * Borra la empresa con el id recibido en la URL.
+     *
+     * @param empresasId Identificador de la empresa que se desea borrar. Este
+     * debe ser una cadena de dígitos.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} -
+     * Error de lógica que se genera cuando no se encuentra la empresa.
+     */
+    @DELETE
+    @Path("{empresasId: \\d+}")
+    public void delete(@PathParam("empresasId") Long empresasId) {
+        LOGGER.log(Level.FINE, "Resource delete: input: {0}", empresasId);
+        if (!empresaLogic.delete(empresasId)) {
+            throw new WebApplicationException("El recurso /empresas/" + empresasId + " no existe.", 404);
+        }
+    }
+
+    /**
+     * Ejecuta una consulta en {@link EmpresaExecutor} y envía su resultado en
+     * la respuesta asíncrona, para que el hilo HTTP quede libre mientras se
+     * espera la base de datos.
+     *
+     * Si la cola del ejecutor está llena se responde 503 de inmediato; si la
+     * consulta no termina en {@link #ASYNC_TIMEOUT_MILLIS} milisegundos se
+     * responde 503 y el resultado, cuando llegue, se descarta. En ambos casos
+     * se incluye <code>Retry-After</code>.
+     *
+     * @param async Respuesta asíncrona de la petición.
+     * @param work Consulta que produce la respuesta. Sus excepciones se
+     * convierten en respuestas con los mappers de excepciones.
+     */
+    private void submit(AsyncResponse async, Callable<Response> work) {
+        async.setTimeout(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        async.setTimeoutHandler(timedOut -> timedOut.resume(unavailable("La consulta tardó más de " + ASYNC_TIMEOUT_MILLIS + " ms.")));
+        try {
+            executor.execute(() -> {
+                try {
+                    async.resume(work.call());
+                } catch (Exception e) {
+                    async.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.WARNING, "Petición rechazada: la cola de {0} está llena", EmpresaExecutor.class.getSimpleName());
+            async.resume(unavailable("El servidor está ocupado."));
+        }
+    }
+
+    /**
+     * Elige el tipo de la respuesta entre {@link #VARIANTS} como lo hace
+     * JAX-RS con {@link Produces}, para saber antes de consultar con qué
+     * llave buscarla en {@link EmpresaResponseCache}.
+     */
+    private static MediaType responseType(Request request) {
+        Variant variant = request.selectVariant(VARIANTS);
+        if (variant != null && variant.getMediaType().isCompatible(CborEmpresaProvider.APPLICATION_CBOR_TYPE)) {
+            return CborEmpresaProvider.APPLICATION_CBOR_TYPE;
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+
+    /**
+     * Responde con la respuesta guardada en {@link EmpresaResponseCache}, o
+     * con 304 si el cliente ya la tiene.
+     *
+     * @return true si la respuesta estaba guardada.
+     */
+    private boolean resumeFromCache(String key, Request request, AsyncResponse async) {
+        EmpresaResponseCache.Entry cached = responseCache.get(key);
+        if (cached == null) {
+            return false;
+        }
+        Response.ResponseBuilder notModified = evaluatePreconditions(request, cached.getLastModified(), cached.getTag());
+        async.resume(notModified != null ? notModified.build() : toResponse(cached));
+        return true;
+    }
+
+    /**
+     * Serializa una respuesta 200 de una consulta, la guarda en
+     * {@link EmpresaResponseCache} y la devuelve ya serializada. Las demás
+     * respuestas se devuelven sin cambios.
+     *
+     * @param key llave de la respuesta.
+     * @param generation generación del caché tomada antes de consultar.
+     * @param empresaId id de la empresa del detalle, o null si es una página.
+     * @param mediaType tipo elegido con {@link #responseType(Request)}.
+     * @param response respuesta de la consulta.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Response cache(String key, long generation, Long empresaId, MediaType mediaType, Response response) throws IOException {
+        if (response.getStatus() != Response.Status.OK.getStatusCode() || !response.hasEntity()) {
+            return response;
+        }
+        Object entity = response.getEntity();
+        int rows = RowCounted.of(entity);
+        Class<?> type = entity.getClass();
+        Type genericType = type;
+        if (entity instanceof GenericEntity) {
+            GenericEntity<?> generic = (GenericEntity<?>) entity;
+            entity = generic.getEntity();
+            type = generic.getRawType();
+            genericType = generic.getType();
+        }
+        MessageBodyWriter writer = providers.getMessageBodyWriter(type, genericType, NO_ANNOTATIONS, mediaType);
+        if (writer == null) {
+            return response;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        writer.writeTo(entity, type, genericType, NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(), body);
+        MultivaluedMap<String, Object> cachedHeaders = new MultivaluedHashMap<>(response.getHeaders());
+        cachedHeaders.remove(HttpHeaders.CONTENT_TYPE);
+        EmpresaResponseCache.Entry cached = new EmpresaResponseCache.Entry(empresaId, body.toByteArray(), rows, mediaType,
+                response.getEntityTag(), response.getLastModified(), cachedHeaders);
+        responseCache.put(key, generation, cached);
+        return toResponse(cached);
+    }
+
+    private static Response toResponse(EmpresaResponseCache.Entry cached) {
+        Response.ResponseBuilder response = Response.ok(cached, cached.getMediaType());
+        for (Map.Entry<String, List<Object>> header : cached.getHeaders().entrySet()) {
+            for (Object value : header.getValue()) {
+                response.header(header.getKey(), value);
+            }
+        }
+        return response.build();
+    }
+
+    private static Response unavailable(String message) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+
+    /**
+     * @return true si la petición trae encabezados para un GET condicional.
+     */
+    private boolean isConditional() {
+        return headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null
+                || headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Verifica que un año del filtro se pueda comparar con las fechas de la
+     * base de datos.
+     *
+     * @param name Nombre del parámetro.
+     * @param anio Año, o null si no se envió.
+     * @throws WebApplicationException Si el año está fuera de rango.
+     */
+    private static void checkAnio(String name, Integer anio) {
+        if (anio != null && (anio < EmpresaFilter.MIN_ANIO || anio > EmpresaFilter.MAX_ANIO)) {
+            throw new WebApplicationException("El parámetro " + name + " debe estar entre "
+                    + EmpresaFilter.MIN_ANIO + " y " + EmpresaFilter.MAX_ANIO + ".", 400);
+        }
+    }
+
+    /**
+     * @return el ETag de la representación de un recurso con los atributos y
+     * el tipo de contenido de la respuesta.
+     */
+    private static EntityTag tagOf(EntityTag tag, Set<EmpresaField> projection, MediaType mediaType) {
+        return EmpresaTags.withType(EmpresaTags.withFields(tag, projection), mediaType);
+    }
+
+    /**
+     * Evalúa las precondiciones de un GET condicional. La respuesta 304 lleva
+     * <code>Vary: Accept</code>, como la respuesta completa.
+     *
+     * @param request Petición con los encabezados condicionales.
+     * @param lastModified Fecha de última modificación del recurso, o null si
+     * no se conoce.
+     * @param tag ETag del recurso.
+     * @return la respuesta 304 si el cliente ya tiene el recurso, o null si hay
+     * que enviarlo.
+     */
+    private static Response.ResponseBuilder evaluatePreconditions(Request request, Date lastModified, EntityTag tag) {
+        Response.ResponseBuilder notModified = lastModified == null
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(lastModified, tag);
+        return notModified == null ? null : notModified.tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Interpreta el parámetro fields.
+     *
+     * @param fields Nombres de atributos de {@link EmpresaDTO} separados por
+     * comas, o null.
+     * @return Los atributos pedidos más el id, o null si no se pidió ninguno
+     * (respuesta completa).
+     * @throws WebApplicationException Si algún nombre no es un atributo.
+     */
+    private static Set<EmpresaField> parseFields(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return null;
+        }
+        Set<EmpresaField> projection = EnumSet.of(EmpresaField.ID);
+        for (String name : fields.split(",")) {
+            EmpresaField field = EmpresaField.of(name.trim());
+            if (field == null) {
+                throw new WebApplicationException("El atributo " + name.trim() + " no existe.", 400);
+            }
+            projection.add(field);
+        }
+        return projection;
+    }
+
+    /**
+     * Calcula el tamaño de página a partir del parámetro limit, aplicando el
+     * máximo permitido por el servidor.
+     *
+     * @param limit Límite pedido por el cliente, o null si no envió ninguno.
+     * @return Tamaño de página entre 1 y {@link #MAX_PAGE_SIZE}.
+     */
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new WebApplicationException("El parámetro limit debe ser mayor que cero.", 400);
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Convierte el id de la última empresa de una página en el cursor opaco que
+     * se entrega al cliente.
+     *
+     * @param lastId Id de la última empresa de la página.
+     * @return Cursor codificado en Base64 seguro para URLs.
+     */
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Obtiene el id de la última empresa de la página anterior a partir del
+     * cursor recibido.
+     *
+     * @param cursor Cursor devuelto por {@link #encodeCursor(Long)}, o null.
+     * @return El id codificado en el cursor, o null si no se envió cursor.
+     * @throws WebApplicationException Si el cursor no es válido.
+     */
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException("El cursor " + cursor + " no es válido.", 400);
+        }
+    }
+
     /**
      * Convierte una lista de Entity a una lista de EmpresaDTO.
      *
      * @param entityList Lista de Entity a convertir.
      * @return Lista de EmpresaDTO convertida.
      */
-    private List<EmpresaDTO> listEntity2DTO(List<EmpresaEntity> entityList) {
-        List<EmpresaDTO> list = new ArrayList<>();
+    List<EmpresaDTO> listEntity2DTO(List<EmpresaEntity> entityList) {
+        return listEntity2DTO(entityList, null);
+    }
+
+    /**
+     * Convierte una lista de Entity a una lista de EmpresaDTO con solo algunos
+     * atributos.
+     *
+     * @param entityList Lista de Entity a convertir.
+     * @param fields Atributos que se copian, o null para copiarlos todos.
+     * @return Lista de EmpresaDTO convertida.
+     */
+    List<EmpresaDTO> listEntity2DTO(List<EmpresaEntity> entityList, Set<EmpresaField> fields) {
+        List<EmpresaDTO> list = new ArrayList<>(entityList.size());
         for (EmpresaEntity entity : entityList) {
-            list.add(new EmpresaDTO(entity));
+            list.add(fields == null ? new EmpresaDTO(entity) : new EmpresaDTO(entity, fields));
         }
         return list;
     }
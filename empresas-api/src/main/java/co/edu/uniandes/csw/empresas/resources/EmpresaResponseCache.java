@@ -0,0 +1,302 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+import co.edu.uniandes.csw.empresa.filters.RowCounted;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Caché de las respuestas ya serializadas de GET /empresas y
+ * GET /empresas/{id}, por URI y tipo de contenido.
+ *
+ * El caché tiene un tamaño máximo en bytes; cuando se llena se descartan las
+ * respuestas usadas hace más tiempo (LRU). Las respuestas se invalidan con los
+ * {@link EmpresaEvent} de las transacciones que terminaron bien: cualquier
+ * cambio descarta todas las páginas y el detalle de la empresa que cambió.
+ *
+ * Para no guardar una respuesta leída antes de un cambio que se invalida
+ * mientras se construye, quien la construye toma la generación con
+ * {@link #getGeneration()} antes de consultar la base de datos, y
+ * {@link #put} la descarta si la generación cambió.
+ *
+ * Se configura con las propiedades del sistema
+ * <code>empresas.responseCache.maxBytes</code> (16 MB) y
+ * <code>empresas.responseCache.maxEntryBytes</code> (1 MB).
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class EmpresaResponseCache {
+
+    private final long maxBytes;
+
+    private final int maxEntryBytes;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Entradas en orden de acceso: la primera es la usada hace más tiempo.
+     * Protegido por su propio monitor, igual que {@link #bytes}.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    /**
+     * Constructor con la configuración de las propiedades del sistema.
+     */
+    public EmpresaResponseCache() {
+        this(Long.getLong("empresas.responseCache.maxBytes", 16L * 1024 * 1024), Integer.getInteger("empresas.responseCache.maxEntryBytes", 1024 * 1024));
+    }
+
+    /**
+     * Constructor con una configuración explícita.
+     *
+     * @param maxBytes bytes máximos de todas las respuestas guardadas.
+     * @param maxEntryBytes bytes máximos de una respuesta; las más grandes no
+     * se guardan.
+     */
+    public EmpresaResponseCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * @param uri URI completa de la petición, con la consulta.
+     * @param mediaType tipo de contenido de la respuesta.
+     * @return la llave de la respuesta en el caché.
+     */
+    static String keyOf(String uri, MediaType mediaType) {
+        return mediaType.getType() + '/' + mediaType.getSubtype() + ' ' + uri;
+    }
+
+    /**
+     * Busca una respuesta.
+     *
+     * @param key llave de {@link #keyOf}.
+     * @return la respuesta, o null si no está.
+     */
+    public Entry get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * @return la generación actual; cambia con cada invalidación.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Guarda una respuesta si no hubo cambios desde que se empezó a
+     * construir.
+     *
+     * @param key llave de {@link #keyOf}.
+     * @param generation generación tomada antes de consultar la base de datos.
+     * @param entry respuesta a guardar.
+     */
+    public void put(String key, long generation, Entry entry) {
+        int size = entry.body.length + key.length();
+        if (size > maxEntryBytes) {
+            return;
+        }
+        synchronized (entries) {
+            // Se compara dentro del monitor: invalidate incrementa la generación antes de tomarlo.
+            if (generation != this.generation.get()) {
+                return;
+            }
+            Entry old = entries.put(key, entry);
+            bytes += size - (old == null ? 0 : old.body.length + key.length());
+            for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext();) {
+                Map.Entry<String, Entry> eldest = it.next();
+                bytes -= eldest.getValue().body.length + eldest.getKey().length();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Descarta las respuestas que dependen de una empresa que cambió.
+     *
+     * @param event cambio que llegó a la base de datos.
+     */
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EmpresaEvent event) {
+        invalidate(event.getEmpresaId());
+    }
+
+    /**
+     * Descarta todas las páginas y el detalle de una empresa.
+     *
+     * @param empresaId id de la empresa que cambió.
+     */
+    public void invalidate(Long empresaId) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, Entry> entry = it.next();
+                Long id = entry.getValue().empresaId;
+                if (id == null || id.equals(empresaId)) {
+                    bytes -= entry.getValue().body.length + entry.getKey().length();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía el caché.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return número de búsquedas que encontraron la respuesta.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return número de búsquedas que no encontraron la respuesta.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return número de respuestas descartadas por falta de espacio.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return bytes ocupados por las respuestas guardadas.
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Respuesta guardada: el cuerpo serializado, su número de filas y los
+     * encabezados que se calcularon al construirla. Es inmutable.
+     */
+    public static final class Entry implements RowCounted {
+
+        private final Long empresaId;
+
+        private final byte[] body;
+
+        private final int rows;
+
+        private final MediaType mediaType;
+
+        private final EntityTag tag;
+
+        private final Date lastModified;
+
+        private final MultivaluedMap<String, Object> headers;
+
+        /**
+         * @param empresaId id de la empresa del detalle, o null si es una
+         * página.
+         * @param body cuerpo serializado.
+         * @param rows número de empresas del cuerpo.
+         * @param mediaType tipo de contenido del cuerpo.
+         * @param tag ETag de la respuesta.
+         * @param lastModified fecha de <code>Last-Modified</code>, o null.
+         * @param headers los demás encabezados de la respuesta, que no se
+         * deben modificar.
+         */
+        Entry(Long empresaId, byte[] body, int rows, MediaType mediaType, EntityTag tag, Date lastModified, MultivaluedMap<String, Object> headers) {
+            this.empresaId = empresaId;
+            this.body = body;
+            this.rows = rows;
+            this.mediaType = mediaType;
+            this.tag = tag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public int getRows() {
+            return rows;
+        }
+
+        MediaType getMediaType() {
+            return mediaType;
+        }
+
+        EntityTag getTag() {
+            return tag;
+        }
+
+        Date getLastModified() {
+            return lastModified;
+        }
+
+        MultivaluedMap<String, Object> getHeaders() {
+            return headers;
+        }
+    }
+}
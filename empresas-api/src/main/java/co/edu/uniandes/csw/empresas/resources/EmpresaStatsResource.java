@@ -0,0 +1,120 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresa.filters.RateLimited;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaCountDTO;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaStatsDTO;
+import co.edu.uniandes.csw.empresas.stats.EmpresaStats;
+import java.util.List;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Clase que implementa el recurso "empresas/stats", con el número de empresas
+ * por ciudad y por año de creación.
+ *
+ * Los conteos se leen de {@link EmpresaStats}, que los mantiene en memoria: no
+ * se consulta la base de datos.
+ *
+ * @author ISIS2603
+ * @version 1.0
+ */
+@Path("/empresas/stats")
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+@RateLimited
+public class EmpresaStatsResource {
+
+    /**
+     * Número de años de un intervalo del histograma cuando no se envía width.
+     */
+    static final int DEFAULT_HISTOGRAM_WIDTH = 10;
+
+    /**
+     * Número máximo de años de un intervalo del histograma.
+     */
+    static final int MAX_HISTOGRAM_WIDTH = 1000;
+
+    @Inject
+    private EmpresaStats stats;
+
+    /**
+     * Devuelve el total de empresas y los conteos por ciudad y por año.
+     *
+     * @return JSON {@link EmpresaStatsDTO} - Los conteos.
+     */
+    @GET
+    public EmpresaStatsDTO getStats() {
+        return new EmpresaStatsDTO(stats);
+    }
+
+    /**
+     * Devuelve el número de empresas por ciudad, en orden alfabético.
+     *
+     * @return JSONArray {@link EmpresaCountDTO} - Los conteos por ciudad.
+     */
+    @GET
+    @Path("ciudades")
+    public List<EmpresaCountDTO> getCiudades() {
+        return EmpresaStatsDTO.ciudadesOf(stats.getByCiudad());
+    }
+
+    /**
+     * Devuelve el número de empresas por año de creación, en orden.
+     *
+     * @return JSONArray {@link EmpresaCountDTO} - Los conteos por año.
+     */
+    @GET
+    @Path("anios")
+    public List<EmpresaCountDTO> getAnios() {
+        return EmpresaStatsDTO.aniosOf(stats.getByAnio());
+    }
+
+    /**
+     * Devuelve el número de empresas por intervalos de años de creación del
+     * mismo ancho. Los intervalos empiezan en múltiplos del ancho y solo se
+     * devuelven los que tienen empresas.
+     *
+     * @param width Número de años de cada intervalo. Por defecto 10.
+     * @return JSONArray {@link EmpresaCountDTO} - Los conteos por intervalo.
+     * @throws WebApplicationException {@link co.edu.uniandes.csw.empresa.mappers.WebApplicationExceptionMapper}
+     * - Error que se genera cuando el ancho no es válido.
+     */
+    @GET
+    @Path("histogram")
+    public List<EmpresaCountDTO> getHistogram(@QueryParam("width") Integer width) {
+        int years = width == null ? DEFAULT_HISTOGRAM_WIDTH : width;
+        if (years < 1 || years > MAX_HISTOGRAM_WIDTH) {
+            throw new WebApplicationException("El parámetro width debe estar entre 1 y " + MAX_HISTOGRAM_WIDTH + ".", 400);
+        }
+        return EmpresaStatsDTO.intervalosOf(stats.getHistogram(years), years);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaField;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaVersion;
+import co.edu.uniandes.csw.empresas.providers.CborEmpresaProvider;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Calcula los ETag de las respuestas de empresas.
+ *
+ * El ETag de una empresa es su id con su versión. El de una página es un
+ * resumen SHA-256 de los ids y versiones de sus empresas y de si existe una
+ * página siguiente, así que cambia cuando se crea, modifica o borra una empresa
+ * de la página. Ambos se pueden calcular solo con las versiones
+ * ({@link EmpresaVersion}), sin cargar las entidades. Cuando la respuesta
+ * solo tiene algunos atributos, el ETag indica cuáles
+ * ({@link #withFields(EntityTag, Set)}), y cuando está en CBOR lleva el
+ * sufijo <code>.cbor</code> ({@link #withType(EntityTag, MediaType)}): cada
+ * representación tiene su propio ETag, así que un
+ * <code>If-None-Match</code> con el ETag del JSON no valida el CBOR.
+ *
+ * Las páginas no tienen fecha <code>Last-Modified</code>: la fecha más
+ * reciente de sus empresas no cambia cuando se borra una, así que un
+ * <code>If-Modified-Since</code> respondería 304 con una página vieja. Solo
+ * el ETag, que sí incluye los ids, sirve para validarlas.
+ *
+ * @author ISIS2603
+ */
+final class EmpresaTags {
+
+    private final MessageDigest digest;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+
+    private EntityTag entityTag;
+
+    private EmpresaTags() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param id id de la empresa.
+     * @param version versión de la empresa; null se toma como 0.
+     * @return el ETag de la empresa.
+     */
+    static EntityTag of(Long id, Long version) {
+        return new EntityTag(id + "-" + (version == null ? 0L : version));
+    }
+
+    /**
+     * Distingue el ETag de una respuesta con solo algunos atributos del de la
+     * respuesta completa, ya que sus cuerpos son distintos.
+     *
+     * @param tag ETag de la empresa o de la página.
+     * @param fields atributos de la respuesta, o null si es completa.
+     * @return el ETag de la respuesta.
+     */
+    static EntityTag withFields(EntityTag tag, Set<EmpresaField> fields) {
+        if (fields == null) {
+            return tag;
+        }
+        int mask = 0;
+        for (EmpresaField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        return new EntityTag(tag.getValue() + "." + Integer.toHexString(mask), tag.isWeak());
+    }
+
+    /**
+     * Distingue el ETag de la respuesta en CBOR del de la respuesta en JSON.
+     *
+     * @param tag ETag de la empresa o de la página, con sus atributos.
+     * @param type tipo de contenido de la respuesta.
+     * @return el ETag de la respuesta.
+     */
+    static EntityTag withType(EntityTag tag, MediaType type) {
+        if (!type.isCompatible(CborEmpresaProvider.APPLICATION_CBOR_TYPE)) {
+            return tag;
+        }
+        return new EntityTag(tag.getValue() + ".cbor", tag.isWeak());
+    }
+
+    /**
+     * Calcula el ETag de una página a partir de las entidades consultadas.
+     *
+     * @param entities empresas consultadas, incluyendo la empresa adicional que
+     * indica si hay página siguiente.
+     * @param pageSize tamaño de la página.
+     * @return el calculador con el resumen de la página.
+     */
+    static EmpresaTags ofEntities(List<EmpresaEntity> entities, int pageSize) {
+        EmpresaTags tags = new EmpresaTags();
+        for (int i = 0; i < entities.size() && i < pageSize; i++) {
+            EmpresaEntity entity = entities.get(i);
+            tags.add(entity.getId(), entity.getVersion() == null ? 0L : entity.getVersion());
+        }
+        tags.end(entities.size() > pageSize);
+        return tags;
+    }
+
+    /**
+     * Calcula el ETag de una página a partir de las versiones consultadas.
+     *
+     * @param versions versiones de las empresas, incluyendo la empresa
+     * adicional que indica si hay página siguiente.
+     * @param pageSize tamaño de la página.
+     * @return el calculador con el resumen de la página.
+     */
+    static EmpresaTags ofVersions(List<EmpresaVersion> versions, int pageSize) {
+        EmpresaTags tags = new EmpresaTags();
+        for (int i = 0; i < versions.size() && i < pageSize; i++) {
+            EmpresaVersion version = versions.get(i);
+            tags.add(version.getId(), version.getVersion());
+        }
+        tags.end(versions.size() > pageSize);
+        return tags;
+    }
+
+    private void add(long id, long version) {
+        buffer.clear();
+        buffer.putLong(id).putLong(version);
+        digest.update(buffer.array());
+    }
+
+    private void end(boolean hasNext) {
+        digest.update((byte) (hasNext ? 1 : 0));
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        entityTag = new EntityTag(sb.toString());
+    }
+
+    /**
+     * @return el ETag de la página.
+     */
+    EntityTag getEntityTag() {
+        return entityTag;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.cache.EmpresaCache;
+import co.edu.uniandes.csw.empresas.changes.EmpresaChangeFeed;
+import co.edu.uniandes.csw.empresas.imports.EmpresaImportService;
+import co.edu.uniandes.csw.empresas.limits.AdaptiveConcurrencyLimit;
+import co.edu.uniandes.csw.empresas.metrics.LatencyHistogram;
+import co.edu.uniandes.csw.empresas.metrics.MetricsRegistry;
+import co.edu.uniandes.csw.empresas.metrics.OperationMetrics;
+import co.edu.uniandes.csw.empresas.outbox.OutboxRelay;
+import java.util.List;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Clase que implementa el recurso "metrics", que expone las métricas de la
+ * aplicación en el formato de texto de Prometheus.
+ *
+ * Para cada endpoint REST y cada método de la lógica y la persistencia se
+ * publica un histograma de latencias en segundos, el total de filas
+ * devueltas y el total de errores. También se publican los contadores del
+ * caché de empresas.
+ *
+ * @author ISIS2603
+ * @version 1.0
+ */
+@Path("/metrics")
+@Produces(MetricsResource.PROMETHEUS_TEXT)
+@RequestScoped
+public class MetricsResource {
+
+    /**
+     * Tipo del formato de texto de Prometheus.
+     */
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Los buckets que se publican son las potencias de dos de 2^7
+     * microsegundos (128 µs) a 2^26 microsegundos (67 s).
+     */
+    private static final int MIN_EXPONENT = 7;
+
+    private static final int MAX_EXPONENT = 26;
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Inject
+    private EmpresaCache cache;
+
+    @Inject
+    private EmpresaResponseCache responseCache;
+
+    @Inject
+    private AdaptiveConcurrencyLimit limit;
+
+    @Inject
+    private EmpresaChangeFeed changes;
+
+    @Inject
+    private OutboxRelay outbox;
+
+    @Inject
+    private EmpresaImportService imports;
+
+    /**
+     * Devuelve todas las métricas.
+     *
+     * @return Las métricas en el formato de texto de Prometheus.
+     */
+    @GET
+    public String getMetrics() {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        writeOperations(sb, "empresas_http_request", "endpoint", "peticiones REST por método del recurso", registry.getEndpoints());
+        writeOperations(sb, "empresas_method", "method", "métodos de EmpresaLogic y EmpresaPersistence", registry.getMethods());
+        writeCounter(sb, "empresas_cache_hits_total", "Consultas al caché de empresas que encontraron la empresa.", cache.getHits());
+        writeCounter(sb, "empresas_cache_misses_total", "Consultas al caché de empresas que no encontraron la empresa.", cache.getMisses());
+        writeCounter(sb, "empresas_cache_evictions_total", "Empresas descartadas del caché por tamaño o vencimiento.", cache.getEvictions());
+        writeGauge(sb, "empresas_cache_size", "Empresas en el caché.", cache.getSize());
+        writeCounter(sb, "empresas_response_cache_hits_total", "Consultas REST respondidas desde el caché de respuestas.", responseCache.getHits());
+        writeCounter(sb, "empresas_response_cache_misses_total", "Consultas REST que no estaban en el caché de respuestas.", responseCache.getMisses());
+        writeCounter(sb, "empresas_response_cache_evictions_total", "Respuestas descartadas del caché por tamaño.", responseCache.getEvictions());
+        writeGauge(sb, "empresas_response_cache_bytes", "Bytes de las respuestas en el caché.", responseCache.getBytes());
+        writeGauge(sb, "empresas_concurrency_limit", "Límite adaptativo de peticiones concurrentes.", limit.getLimit());
+        writeGauge(sb, "empresas_concurrency_in_flight", "Peticiones admitidas que no han terminado.", limit.getInFlight());
+        writeCounter(sb, "empresas_changes_total", "Cambios de empresas registrados en el feed de cambios.", changes.getLatest());
+        writeGauge(sb, "empresas_changes_waiting", "Peticiones esperando cambios de empresas.", changes.getWaiting());
+        writeCounter(sb, "empresas_outbox_delivered_total", "Cambios del outbox entregados al destino, incluyendo reintentos.", outbox.getDelivered());
+        writeCounter(sb, "empresas_outbox_failures_total", "Lotes del outbox cuya entrega falló.", outbox.getFailures());
+        writeGauge(sb, "empresas_outbox_pending", "Cambios del outbox que no se han entregado.", outbox.getPending());
+        writeCounter(sb, "empresas_import_imported_total", "Empresas guardadas por importaciones de archivos.", imports.getImported());
+        writeCounter(sb, "empresas_import_failed_total", "Filas de archivos importados que no se pudieron guardar.", imports.getFailed());
+        writeGauge(sb, "empresas_import_running", "Importaciones de archivos en curso.", imports.getRunning());
+        return sb.toString();
+    }
+
+    private static void writeOperations(StringBuilder sb, String prefix, String label, String description, List<OperationMetrics> operations) {
+        String duration = prefix + "_duration_seconds";
+        sb.append("# HELP ").append(duration).append(" Duración de las ").append(description).append(".\n");
+        sb.append("# TYPE ").append(duration).append(" histogram\n");
+        for (OperationMetrics operation : operations) {
+            LatencyHistogram latency = operation.getLatency();
+            // El total se lee primero: los buckets pueden avanzar mientras se leen, pero nunca quedan por encima de +Inf.
+            long count = latency.getCount();
+            long sum = latency.getSumMicros();
+            for (int exponent = MIN_EXPONENT; exponent <= MAX_EXPONENT; exponent++) {
+                long below = Math.min(count, latency.countBelowPowerOfTwo(exponent));
+                sb.append(duration).append("_bucket{").append(label).append("=\"").append(operation.getName())
+                        .append("\",le=\"").append(seconds(1L << exponent)).append("\"} ").append(below).append('\n');
+            }
+            sb.append(duration).append("_bucket{").append(label).append("=\"").append(operation.getName())
+                    .append("\",le=\"+Inf\"} ").append(count).append('\n');
+            sb.append(duration).append("_sum{").append(label).append("=\"").append(operation.getName())
+                    .append("\"} ").append(seconds(sum)).append('\n');
+            sb.append(duration).append("_count{").append(label).append("=\"").append(operation.getName())
+                    .append("\"} ").append(count).append('\n');
+        }
+        writeTotals(sb, prefix + "_rows_total", label, "Filas devueltas por las " + description + ".", operations, false);
+        writeTotals(sb, prefix + "_errors_total", label, "Errores de las " + description + ".", operations, true);
+    }
+
+    private static void writeTotals(StringBuilder sb, String name, String label, String help, List<OperationMetrics> operations, boolean errors) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        for (OperationMetrics operation : operations) {
+            sb.append(name).append('{').append(label).append("=\"").append(operation.getName()).append("\"} ")
+                    .append(errors ? operation.getErrors() : operation.getRows()).append('\n');
+        }
+    }
+
+    private static void writeCounter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void writeGauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" gauge\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * @param micros una duración en microsegundos.
+     * @return la duración en segundos como texto.
+     */
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+}
@@ -0,0 +1,307 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.cache;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Caché compartido de empresas por id.
+ *
+ * El caché tiene un número máximo de entradas y un tiempo de vida por entrada.
+ * Cuando se llena se descarta la empresa usada hace más tiempo (LRU). Las
+ * entradas guardan una copia de la entidad, de modo que quien la recibe puede
+ * modificarla sin afectar al caché.
+ *
+ * Para no guardar una empresa leída antes de un cambio que se invalida
+ * mientras se consulta, quien la consulta toma la generación del id con
+ * {@link #getGeneration(Long)} antes de ir a la base de datos, y
+ * {@link #put} la descarta si la generación cambió. Las generaciones se
+ * guardan por grupos de ids, de modo que un cambio en una empresa solo
+ * descarta las lecturas de las empresas de su grupo. Además nunca se
+ * reemplaza una entrada por otra de una versión anterior.
+ *
+ * La configuración se lee de las propiedades del sistema
+ * <code>empresas.cache.maxSize</code> (10000 por defecto) y
+ * <code>empresas.cache.ttlSeconds</code> (300 por defecto).
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class EmpresaCache {
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    /**
+     * Número de grupos de ids con generación propia. Es una potencia de dos.
+     */
+    private static final int GENERATIONS = 64;
+
+    /**
+     * Generación de cada grupo de ids; cambia con cada invalidación de una
+     * empresa del grupo.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Entradas en orden de acceso: la primera es la usada hace más tiempo.
+     */
+    private final LinkedHashMap<Long, Entry> entries;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactions;
+
+    /**
+     * Constructor con la configuración de las propiedades del sistema.
+     */
+    public EmpresaCache() {
+        this(Integer.getInteger("empresas.cache.maxSize", 10000), Long.getLong("empresas.cache.ttlSeconds", 300L) * 1000L);
+    }
+
+    /**
+     * Constructor con una configuración explícita.
+     *
+     * @param maxSize número máximo de empresas en el caché.
+     * @param ttlMillis tiempo en milisegundos que una empresa permanece en el
+     * caché.
+     */
+    public EmpresaCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > EmpresaCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Busca una empresa en el caché.
+     *
+     * @param id id de la empresa.
+     * @return una copia de la empresa, o null si no está en el caché o ya
+     * venció.
+     */
+    public EmpresaEntity get(Long id) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+            if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(id);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(entry.empresa);
+    }
+
+    /**
+     * @param id id de una empresa.
+     * @return la generación actual del id; cambia cada vez que se invalida la
+     * empresa o alguna otra de su grupo.
+     */
+    public long getGeneration(Long id) {
+        return id == null ? 0L : generations.get(slotOf(id));
+    }
+
+    /**
+     * Guarda una copia de la empresa en el caché si no cambió desde que se
+     * empezó a consultar y no hay ya una versión más reciente.
+     *
+     * @param empresa empresa a guardar. Si no tiene id no se guarda.
+     * @param generation generación del id tomada con
+     * {@link #getGeneration(Long)} antes de consultar la base de datos.
+     */
+    public void put(EmpresaEntity empresa, long generation) {
+        if (empresa == null || empresa.getId() == null || maxSize <= 0) {
+            return;
+        }
+        Entry entry = new Entry(copy(empresa), System.currentTimeMillis() + ttlMillis);
+        int slot = slotOf(empresa.getId());
+        synchronized (entries) {
+            // Se compara dentro del monitor: remove incrementa la generación antes de tomarlo.
+            if (generation != generations.get(slot)) {
+                return;
+            }
+            Entry old = entries.get(empresa.getId());
+            if (old != null && isOlder(empresa.getVersion(), old.empresa.getVersion())) {
+                return;
+            }
+            entries.put(empresa.getId(), entry);
+        }
+    }
+
+    /**
+     * Saca una empresa del caché. Si hay una transacción activa la empresa se
+     * vuelve a sacar cuando la transacción termina, para descartar lo que otra
+     * petición haya leído antes del commit.
+     *
+     * @param id id de la empresa que cambió.
+     */
+    public void invalidate(final Long id) {
+        if (id == null) {
+            return;
+        }
+        remove(id);
+        if (transactions != null && transactions.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            transactions.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // No hay nada que hacer antes del commit.
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    remove(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Vacía el caché.
+     */
+    public void clear() {
+        for (int i = 0; i < GENERATIONS; i++) {
+            generations.incrementAndGet(i);
+        }
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return número de búsquedas que encontraron la empresa en el caché.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return número de búsquedas que no encontraron la empresa en el caché.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return número de empresas descartadas por falta de espacio o por
+     * vencimiento.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return número de empresas en el caché.
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return número máximo de empresas en el caché.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return tiempo de vida de las entradas en milisegundos.
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    private void remove(Long id) {
+        generations.incrementAndGet(slotOf(id));
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    private static int slotOf(Long id) {
+        long value = id;
+        return (int) (value ^ (value >>> 32)) & (GENERATIONS - 1);
+    }
+
+    private static boolean isOlder(Long version, Long current) {
+        return version != null && current != null && version < current;
+    }
+
+    private static EmpresaEntity copy(EmpresaEntity empresa) {
+        EmpresaEntity copy = new EmpresaEntity();
+        copy.setId(empresa.getId());
+        copy.setEmpresa(empresa.getEmpresa());
+        copy.setCiudad(empresa.getCiudad());
+        copy.setImage(empresa.getImage());
+        copy.setAniocreacion(empresa.getAniocreacion());
+        copy.setVersion(empresa.getVersion());
+        copy.setLastModified(empresa.getLastModified());
+        return copy;
+    }
+
+    /**
+     * Empresa guardada en el caché con su fecha de vencimiento.
+     */
+    private static class Entry {
+
+        private final EmpresaEntity empresa;
+
+        private final long expiresAt;
+
+        Entry(EmpresaEntity empresa, long expiresAt) {
+            this.empresa = empresa;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.changes;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+
+/**
+ * Un cambio de una empresa en {@link EmpresaChangeFeed}. Es inmutable.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaChange {
+
+    private final long sequence;
+
+    private final EmpresaEvent.Type type;
+
+    private final Long empresaId;
+
+    private final Long version;
+
+    private final long timestamp;
+
+    /**
+     * @param sequence número del cambio; crece de uno en uno.
+     * @param type tipo de cambio.
+     * @param empresaId id de la empresa.
+     * @param version versión de la empresa después del cambio, o null si se
+     * borró.
+     * @param timestamp instante del cambio en milisegundos.
+     */
+    public EmpresaChange(long sequence, EmpresaEvent.Type type, Long empresaId, Long version, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.empresaId = empresaId;
+        this.version = version;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return el número del cambio; crece de uno en uno desde que se desplegó
+     * la aplicación.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return el tipo de cambio.
+     */
+    public EmpresaEvent.Type getType() {
+        return type;
+    }
+
+    /**
+     * @return el id de la empresa.
+     */
+    public Long getEmpresaId() {
+        return empresaId;
+    }
+
+    /**
+     * @return la versión de la empresa después del cambio, o null si se
+     * borró.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return el instante del cambio en milisegundos.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
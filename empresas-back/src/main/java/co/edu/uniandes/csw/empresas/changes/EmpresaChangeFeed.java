@@ -0,0 +1,251 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.changes;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.event.TransactionPhase;
+
+/**
+ * Buffer circular en memoria con los últimos cambios de las empresas, para
+ * que los clientes se enteren de ellos sin volver a consultar todas las
+ * empresas.
+ *
+ * Cada {@link EmpresaEvent} de una transacción que terminó bien recibe un
+ * número consecutivo y se guarda en la posición <code>número % capacidad</code>
+ * de un {@link AtomicReferenceArray}; los cambios más viejos se sobrescriben.
+ * Ni quien escribe ni quien lee usa candados.
+ *
+ * Quien espera cambios nuevos se registra con {@link #await(Runnable)}. Al
+ * registrar un cambio, las esperas se ejecutan en unos pocos hilos propios
+ * del feed en lugar del hilo de la transacción, para no demorar la respuesta
+ * de quien hizo el cambio. No se usa
+ * {@link co.edu.uniandes.csw.empresas.ejb.EmpresaExecutor}: un cambio
+ * despierta a todas las esperas a la vez, que llenarían su cola y la de las
+ * consultas. La cola de estos hilos tiene espacio para todas las esperas,
+ * porque una espera cuenta en {@link #getWaiting()} hasta que empieza a
+ * ejecutarse.
+ *
+ * Se configura con las propiedades del sistema
+ * <code>empresas.changes.capacity</code> (4096, se redondea a una potencia de
+ * dos), <code>empresas.changes.maxWaiters</code> (1024) y
+ * <code>empresas.changes.threads</code> (4).
+ *
+ * @author ISIS2603
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class EmpresaChangeFeed {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaChangeFeed.class.getName());
+
+    static final int CAPACITY = Integer.highestOneBit(Math.max(1, Integer.getInteger("empresas.changes.capacity", 4096) * 2 - 1));
+
+    static final int MAX_WAITERS = Integer.getInteger("empresas.changes.maxWaiters", 1024);
+
+    static final int THREADS = Integer.getInteger("empresas.changes.threads", 4);
+
+    private static final int MASK = CAPACITY - 1;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * Hilos que ejecutan las esperas.
+     */
+    private ThreadPoolExecutor notifier;
+
+    private final AtomicReferenceArray<EmpresaChange> ring = new AtomicReferenceArray<>(CAPACITY);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Esperas en {@link #waiters} o en la cola de {@link #notifier};
+     * {@link ConcurrentLinkedQueue#size()} recorre la cola.
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Crea los hilos que ejecutan las esperas.
+     */
+    @PostConstruct
+    public void start() {
+        notifier = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, MAX_WAITERS)), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Detiene los hilos. Las esperas pendientes terminan por tiempo.
+     */
+    @PreDestroy
+    public void stop() {
+        notifier.shutdownNow();
+    }
+
+    /**
+     * Registra un cambio que llegó a la base de datos y despierta a quienes
+     * esperan.
+     *
+     * @param event el cambio.
+     */
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EmpresaEvent event) {
+        long next = sequence.incrementAndGet();
+        Long version = event.getType() == EmpresaEvent.Type.DELETE ? null : event.getEmpresa().getVersion();
+        ring.set((int) (next & MASK), new EmpresaChange(next, event.getType(), event.getEmpresaId(), version, System.currentTimeMillis()));
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        int rejected = 0;
+        Runnable waiter;
+        while ((waiter = waiters.poll()) != null) {
+            try {
+                notifier.execute(new Notification(waiter));
+            } catch (RejectedExecutionException e) {
+                // Solo pasa al detener la aplicación; la espera termina por tiempo.
+                waiting.decrementAndGet();
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            LOGGER.log(Level.WARNING, "No se pudo avisar de un cambio a {0} esperas", rejected);
+        }
+    }
+
+    /**
+     * Lee los cambios posteriores a uno dado.
+     *
+     * @param after número del último cambio que el cliente ya conoce.
+     * @param max número máximo de cambios.
+     * @return los cambios, o un resultado con {@link EmpresaChanges#isReset()}
+     * si alguno ya no está en el buffer.
+     */
+    public EmpresaChanges read(long after, int max) {
+        long latest = sequence.get();
+        if (after > latest || latest - after > CAPACITY) {
+            return new EmpresaChanges(Collections.<EmpresaChange>emptyList(), true, latest);
+        }
+        List<EmpresaChange> changes = new ArrayList<>((int) Math.min(max, latest - after));
+        for (long next = after + 1; next <= latest && changes.size() < max; next++) {
+            EmpresaChange change = ring.get((int) (next & MASK));
+            if (change == null || change.getSequence() < next) {
+                // Otro hilo tomó el número pero aún no guarda el cambio; se lee en la próxima llamada.
+                break;
+            }
+            if (change.getSequence() > next) {
+                return new EmpresaChanges(Collections.<EmpresaChange>emptyList(), true, latest);
+            }
+            changes.add(change);
+        }
+        return new EmpresaChanges(changes, false, latest);
+    }
+
+    /**
+     * Registra una espera que se ejecuta una vez, en los hilos del feed, con
+     * el próximo cambio. Quien espera debe volver a leer con
+     * {@link #read(long, int)} después de registrarse, para no perder un
+     * cambio registrado mientras se registraba.
+     *
+     * @param waiter la espera.
+     * @return false si ya hay {@link #MAX_WAITERS} esperas.
+     */
+    public boolean await(Runnable waiter) {
+        if (waiting.incrementAndGet() > MAX_WAITERS) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        waiters.add(waiter);
+        return true;
+    }
+
+    /**
+     * Quita una espera que terminó por tiempo.
+     *
+     * @param waiter la espera registrada con {@link #await(Runnable)}.
+     */
+    public void cancel(Runnable waiter) {
+        if (waiters.remove(waiter)) {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return el número del último cambio registrado, o 0 si no hay ninguno.
+     */
+    public long getLatest() {
+        return sequence.get();
+    }
+
+    /**
+     * @return el número de esperas registradas.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Espera enviada a {@link #notifier}; deja de contar en {@link #waiting}
+     * cuando empieza a ejecutarse, para que pueda volver a registrarse.
+     */
+    private final class Notification implements Runnable {
+
+        private final Runnable waiter;
+
+        Notification(Runnable waiter) {
+            this.waiter = waiter;
+        }
+
+        @Override
+        public void run() {
+            waiting.decrementAndGet();
+            waiter.run();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.changes;
+
+import java.util.List;
+
+/**
+ * Resultado de {@link EmpresaChangeFeed#read(long, int)}.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaChanges {
+
+    private final List<EmpresaChange> changes;
+
+    private final boolean reset;
+
+    private final long latest;
+
+    /**
+     * @param changes cambios leídos, en orden.
+     * @param reset true si faltan cambios entre el pedido y los leídos.
+     * @param latest número del último cambio registrado.
+     */
+    EmpresaChanges(List<EmpresaChange> changes, boolean reset, long latest) {
+        this.changes = changes;
+        this.reset = reset;
+        this.latest = latest;
+    }
+
+    /**
+     * @return los cambios siguientes al pedido, en orden y sin huecos. Vacío
+     * si no hay cambios nuevos o si {@link #isReset()}.
+     */
+    public List<EmpresaChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return true si los cambios siguientes al pedido ya no están en el
+     * buffer, o si el número pedido es de un despliegue anterior. El cliente
+     * debe volver a leer las empresas y seguir desde {@link #getLatest()}.
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * @return el número del último cambio registrado, o 0 si no hay ninguno.
+     */
+    public long getLatest() {
+        return latest;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.ejb;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+
+/**
+ * Evento CDI que {@link EmpresaLogic} dispara cada vez que crea, actualiza o
+ * borra una empresa.
+ *
+ * El evento se dispara dentro de la transacción del cambio. Los observadores
+ * que mantienen copias derivadas de los datos deben usar
+ * <code>@Observes(during = TransactionPhase.AFTER_SUCCESS)</code> para
+ * enterarse solo de los cambios que llegaron a la base de datos.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaEvent {
+
+    /**
+     * Tipo de cambio.
+     */
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final Type type;
+
+    private final EmpresaEntity empresa;
+
+    private final EmpresaEntity previous;
+
+    /**
+     * @param type tipo de cambio.
+     * @param empresa la empresa después del cambio o, si se borró, como estaba
+     * antes de borrarla.
+     */
+    public EmpresaEvent(Type type, EmpresaEntity empresa) {
+        this(type, empresa, null);
+    }
+
+    /**
+     * @param type tipo de cambio.
+     * @param empresa la empresa después del cambio o, si se borró, como estaba
+     * antes de borrarla.
+     * @param previous en una actualización, la empresa antes del cambio; puede
+     * traer solo algunos atributos.
+     */
+    public EmpresaEvent(Type type, EmpresaEntity empresa, EmpresaEntity previous) {
+        this.type = type;
+        this.empresa = empresa;
+        this.previous = previous;
+    }
+
+    /**
+     * @return el tipo de cambio.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return la empresa después del cambio o, si se borró, como estaba antes
+     * de borrarla. Los observadores no deben modificarla.
+     */
+    public EmpresaEntity getEmpresa() {
+        return empresa;
+    }
+
+    /**
+     * @return en una actualización que pudo cambiar la ciudad o la fecha de
+     * creación, la empresa antes del cambio con al menos esos dos atributos;
+     * null en los demás casos.
+     */
+    public EmpresaEntity getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return el id de la empresa.
+     */
+    public Long getEmpresaId() {
+        return empresa.getId();
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + empresa.getId();
+    }
+}
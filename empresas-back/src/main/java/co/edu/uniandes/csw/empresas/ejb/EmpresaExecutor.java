@@ -0,0 +1,116 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.ejb;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+
+/**
+ * Ejecutor acotado para atender peticiones fuera de los hilos HTTP del
+ * servidor.
+ *
+ * Tiene un número fijo de hilos, creados con el {@link ManagedThreadFactory}
+ * del servidor para que puedan llamar a los EJB, y una cola de tamaño fijo.
+ * Cuando la cola está llena {@link #execute(Runnable)} falla de inmediato en
+ * lugar de encolar sin límite, así quien llama puede rechazar la petición.
+ *
+ * No se usa <code>@Asynchronous</code> porque el pool de EJB asíncronos del
+ * servidor tiene una cola sin límite y no permite rechazar trabajo.
+ *
+ * Se configura con las propiedades del sistema
+ * <code>empresas.async.threads</code> (32 por defecto, el tamaño del pool de
+ * conexiones) y <code>empresas.async.queueSize</code> (256 por defecto).
+ *
+ * @author ISIS2603
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class EmpresaExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaExecutor.class.getName());
+
+    static final int THREADS = Integer.getInteger("empresas.async.threads", 32);
+
+    static final int QUEUE_SIZE = Integer.getInteger("empresas.async.queueSize", 256);
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Crea los hilos del ejecutor.
+     */
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        LOGGER.log(Level.INFO, "Ejecutor de empresas con {0} hilos y cola de {1}", new Object[]{THREADS, QUEUE_SIZE});
+    }
+
+    /**
+     * Detiene el ejecutor. Las tareas en la cola no se ejecutan.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Ejecuta una tarea en uno de los hilos del ejecutor.
+     *
+     * @param task tarea a ejecutar.
+     * @throws RejectedExecutionException si la cola está llena.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * @return número de tareas esperando un hilo.
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return número de hilos ejecutando una tarea.
+     */
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+}
@@ -26,49 +26,159 @@ package co.edu.uniandes.csw.empresas.ejb;
 
 import co.edu.uniandes.csw.empresas.exceptions.BusinessLogicException;
 import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.metrics.Timed;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaField;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaFilter;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
 import co.edu.uniandes.csw.empresas.persistence.EmpresaPersistence;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaVersion;
+import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 /**
  * Clase que implementa la conexion con la persistencia para la entidad de
  * .
  *
+ * Cada creación, actualización y borrado dispara un {@link EmpresaEvent}.
+ *
  * @author ISIS2603
  */
 @Stateless
+@Timed
 public class EmpresaLogic {
 
     private static final Logger LOGGER = Logger.getLogger(EmpresaLogic.class.getName());
 
+    /**
+     * Número de empresas que se envían juntas a la base de datos en
+     * {@link #createAll(List)}. Por defecto coincide con
+     * eclipselink.jdbc.batch-writing.size.
+     */
+    static final int BATCH_CHUNK_SIZE = Integer.getInteger("empresas.batch.chunkSize", 100);
+
+    /**
+     * Atributos de la empresa anterior que se envían en los
+     * {@link EmpresaEvent} de actualización: los que cambian los conteos de
+     * {@link co.edu.uniandes.csw.empresas.stats.EmpresaStats}.
+     */
+    private static final Set<EmpresaField> PREVIOUS_FIELDS = EnumSet.of(EmpresaField.CIUDAD, EmpresaField.ANIOCREACION);
+
     @Inject
     private EmpresaPersistence persistence;
 
+    @Inject
+    private EmpresaImageStore images;
+
+    @Inject
+    private Event<EmpresaEvent> events;
+
     /**
      * Se encarga de crear un  en la base de datos.
      *
      * @param empresaEntity Objeto de EmpresaEntity con los datos nuevos
      * @return Objeto de EmpresaEntity con los datos nuevos y su ID.
+     * @throws BusinessLogicException Si la imagen es un data URI inválido.
      */
-    public EmpresaEntity create(EmpresaEntity empresaEntity) {
-        LOGGER.log(Level.INFO, "Inicia proceso de creación del autor");
+    public EmpresaEntity create(EmpresaEntity empresaEntity) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Inicia proceso de creación del autor");
+        storeImage(empresaEntity);
         EmpresaEntity newEmpresaEntity = persistence.create(empresaEntity);
-        LOGGER.log(Level.INFO, "Termina proceso de creación del autor");
+        events.fire(new EmpresaEvent(EmpresaEvent.Type.CREATE, newEmpresaEntity));
+        LOGGER.log(Level.FINE, "Termina proceso de creación del autor");
         return newEmpresaEntity;
     }
 
+    /**
+     * Se encarga de crear varias empresas en la base de datos en una sola
+     * transacción. Si alguna falla no se crea ninguna.
+     *
+     * @param empresas Lista de EmpresaEntity con los datos nuevos.
+     * @return Lista de EmpresaEntity con los datos nuevos y su ID, en el mismo
+     * orden en que se recibieron.
+     * @throws BusinessLogicException Si alguna imagen es un data URI inválido.
+     */
+    public List<EmpresaEntity> createAll(List<EmpresaEntity> empresas) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Inicia proceso de creación de {0} empresas", empresas.size());
+        for (EmpresaEntity empresa : empresas) {
+            storeImage(empresa);
+        }
+        List<EmpresaEntity> newEmpresas = persistence.createAll(empresas, BATCH_CHUNK_SIZE);
+        for (EmpresaEntity newEmpresa : newEmpresas) {
+            events.fire(new EmpresaEvent(EmpresaEvent.Type.CREATE, newEmpresa));
+        }
+        LOGGER.log(Level.FINE, "Termina proceso de creación de {0} empresas", empresas.size());
+        return newEmpresas;
+    }
+
     /**
      * Obtiene la lista de los registros de .
      *
      * @return Colección de objetos de EmpresaEntity.
      */
     public List<EmpresaEntity> gets() {
-        LOGGER.log(Level.INFO, "Inicia proceso de consultar todos los autores");
+        LOGGER.log(Level.FINE, "Inicia proceso de consultar todos los autores");
         List<EmpresaEntity> lista = persistence.findAll();
-        LOGGER.log(Level.INFO, "Termina proceso de consultar todos los autores");
+        LOGGER.log(Level.FINE, "Termina proceso de consultar todos los autores");
+        return lista;
+    }
+
+    /**
+     * Obtiene una página de empresas ordenada por id.
+     *
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * obtener la primera página.
+     * @param limit número máximo de empresas de la página.
+     * @return Colección de objetos de EmpresaEntity con a lo sumo limit
+     * elementos.
+     */
+    public List<EmpresaEntity> getPage(Long afterId, int limit) {
+        return getPage(null, afterId, limit);
+    }
+
+    /**
+     * Obtiene una página de las empresas que cumplen el filtro, ordenada por
+     * id.
+     *
+     * @param filter Criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * obtener la primera página.
+     * @param limit número máximo de empresas de la página.
+     * @return Colección de objetos de EmpresaEntity con a lo sumo limit
+     * elementos.
+     */
+    public List<EmpresaEntity> getPage(EmpresaFilter filter, Long afterId, int limit) {
+        LOGGER.log(Level.FINE, "Inicia proceso de consultar una página de empresas después del id = {0}", afterId);
+        List<EmpresaEntity> lista = persistence.findPage(filter, afterId, limit);
+        LOGGER.log(Level.FINE, "Termina proceso de consultar una página de empresas después del id = {0}", afterId);
+        return lista;
+    }
+
+    /**
+     * Obtiene una página de las empresas que cumplen el filtro consultando
+     * solo algunos de sus atributos.
+     *
+     * @param filter Criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * obtener la primera página.
+     * @param limit número máximo de empresas de la página.
+     * @param fields Atributos que se consultan; id, version y lastModified se
+     * consultan siempre.
+     * @return Colección de objetos de EmpresaEntity con a lo sumo limit
+     * elementos y solo esos atributos.
+     */
+    public List<EmpresaEntity> getPage(EmpresaFilter filter, Long afterId, int limit, Set<EmpresaField> fields) {
+        LOGGER.log(Level.FINE, "Inicia proceso de consultar una proyección de empresas después del id = {0}", afterId);
+        List<EmpresaEntity> lista = persistence.findPage(filter, afterId, limit, fields);
+        LOGGER.log(Level.FINE, "Termina proceso de consultar una proyección de empresas después del id = {0}", afterId);
         return lista;
     }
 
@@ -79,27 +189,197 @@ public class EmpresaLogic {
      * @return Instancia de EmpresaEntity con los datos del  consultado.
      */
     public EmpresaEntity get(Long authorsId) {
-        LOGGER.log(Level.INFO, "Inicia proceso de consultar el autor con id = {0}", authorsId);
+        LOGGER.log(Level.FINE, "Inicia proceso de consultar el autor con id = {0}", authorsId);
         EmpresaEntity empresaEntity = persistence.find(authorsId);
         if (empresaEntity == null) {
             LOGGER.log(Level.SEVERE, "La editorial con el id = {0} no existe", authorsId);
         }
-        LOGGER.log(Level.INFO, "Termina proceso de consultar el autor con id = {0}", authorsId);
+        LOGGER.log(Level.FINE, "Termina proceso de consultar el autor con id = {0}", authorsId);
         return empresaEntity;
     }
 
+    /**
+     * Obtiene algunos atributos de una empresa a partir de su ID.
+     *
+     * @param authorsId Identificador de la instancia a consultar
+     * @param fields Atributos que se consultan; id, version y lastModified se
+     * consultan siempre.
+     * @return Instancia de EmpresaEntity con al menos esos atributos, o null si
+     * no existe.
+     */
+    public EmpresaEntity get(Long authorsId, Set<EmpresaField> fields) {
+        return persistence.find(authorsId, fields);
+    }
+
+    /**
+     * Obtiene la versión de una empresa sin cargar todos sus datos.
+     *
+     * @param authorsId Identificador de la empresa.
+     * @return La versión de la empresa, o null si no existe.
+     */
+    public EmpresaVersion getVersion(Long authorsId) {
+        return persistence.findVersion(authorsId);
+    }
+
+    /**
+     * Obtiene la versión de las empresas de una página sin cargar todos sus
+     * datos. Recibe los mismos argumentos que
+     * {@link #getPage(EmpresaFilter, Long, int)}.
+     *
+     * @param filter Criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * obtener la primera página.
+     * @param limit número máximo de empresas de la página.
+     * @return La versión de cada empresa de la página, en el mismo orden.
+     */
+    public List<EmpresaVersion> getPageVersions(EmpresaFilter filter, Long afterId, int limit) {
+        return persistence.findPageVersions(filter, afterId, limit);
+    }
+
+    /**
+     * Busca la imagen de una empresa en el almacén de imágenes.
+     *
+     * @param authorsId Identificador de la empresa.
+     * @return el archivo de la imagen, o null si la empresa no existe o su
+     * imagen no está en el almacén.
+     */
+    public Path getImage(Long authorsId) {
+        EmpresaEntity empresaEntity = persistence.find(authorsId);
+        if (empresaEntity == null) {
+            return null;
+        }
+        String hash = EmpresaImageStore.hashOf(empresaEntity.getImage());
+        return hash == null ? null : images.find(hash);
+    }
+
     /**
      * Actualiza la información de una instancia de .
      *
+     * Cuesta dos sentencias: una consulta que bloquea la fila y lee la
+     * versión, la ciudad y la fecha de creación anteriores, que necesita el
+     * {@link EmpresaEvent}, y el UPDATE sobre el id y esa versión. La empresa
+     * que se devuelve se arma con los datos recibidos, sin volver a
+     * consultarla. Si la entidad trae una versión, debe coincidir con la
+     * versión guardada; de lo contrario la empresa fue modificada por otra
+     * petición después de que el cliente la leyó y no se actualiza.
+     *
      * @param authorsId Identificador de la instancia a actualizar
      * @param empresaEntity Instancia de EmpresaEntity con los nuevos datos.
-     * @return Instancia de EmpresaEntity con los datos actualizados.
+     * @return Instancia de EmpresaEntity con los datos actualizados, o null si
+     * la empresa no existe.
+     * @throws BusinessLogicException Si la versión recibida no es la vigente o
+     * la imagen es un data URI inválido.
+     */
+    public EmpresaEntity update(Long authorsId, EmpresaEntity empresaEntity) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Inicia proceso de actualizar el autor con id = {0}", authorsId);
+        EmpresaEntity newEmpresaEntity = updateFields(authorsId, empresaEntity, false);
+        LOGGER.log(Level.FINE, "Termina proceso de actualizar el autor con id = {0}", authorsId);
+        return newEmpresaEntity;
+    }
+
+    /**
+     * Actualiza solo los atributos de una empresa que no son null en la
+     * entidad recibida. Como en {@link #update(Long, EmpresaEntity)}, se usa
+     * una sentencia UPDATE y, si la entidad trae versión, debe ser la
+     * vigente. Solo si cambian la ciudad o la fecha de creación se consultan
+     * antes sus valores anteriores.
+     *
+     * @param authorsId Identificador de la instancia a actualizar
+     * @param empresaEntity Instancia de EmpresaEntity con los atributos que
+     * cambian; los atributos null no se modifican.
+     * @return Instancia de EmpresaEntity con todos sus datos actualizados, o
+     * null si la empresa no existe.
+     * @throws BusinessLogicException Si la versión recibida no es la vigente o
+     * la imagen es un data URI inválido.
+     */
+    public EmpresaEntity patch(Long authorsId, EmpresaEntity empresaEntity) throws BusinessLogicException {
+        LOGGER.log(Level.FINE, "Inicia proceso de actualizar parcialmente la empresa con id = {0}", authorsId);
+        EmpresaEntity newEmpresaEntity = updateFields(authorsId, empresaEntity, true);
+        LOGGER.log(Level.FINE, "Termina proceso de actualizar parcialmente la empresa con id = {0}", authorsId);
+        return newEmpresaEntity;
+    }
+
+    /**
+     * Borra una empresa.
+     *
+     * La imagen de la empresa no se borra del almacén: las imágenes se guardan
+     * por su contenido y otra empresa puede tener la misma.
+     *
+     * @param authorsId Identificador de la empresa a borrar.
+     * @return true si la empresa existía y se borró, false si no existe.
      */
-    public EmpresaEntity update(Long authorsId, EmpresaEntity empresaEntity) {
-        LOGGER.log(Level.INFO, "Inicia proceso de actualizar el autor con id = {0}", authorsId);
-        EmpresaEntity newEmpresaEntity = persistence.update(empresaEntity);
-        LOGGER.log(Level.INFO, "Termina proceso de actualizar el autor con id = {0}", authorsId);
+    public boolean delete(Long authorsId) {
+        LOGGER.log(Level.FINE, "Inicia proceso de borrar la empresa con id = {0}", authorsId);
+        EmpresaEntity empresaEntity = persistence.find(authorsId);
+        if (empresaEntity == null) {
+            return false;
+        }
+        persistence.delete(authorsId);
+        events.fire(new EmpresaEvent(EmpresaEvent.Type.DELETE, empresaEntity));
+        LOGGER.log(Level.FINE, "Termina proceso de borrar la empresa con id = {0}", authorsId);
+        return true;
+    }
+
+    /**
+     * Ejecuta la actualización y, si no se actualizó ninguna fila, distingue
+     * entre una empresa que no existe y una versión que no es la vigente.
+     *
+     * Si la actualización puede cambiar la ciudad o la fecha de creación, antes
+     * se consultan, bloqueando la fila, esos atributos, que el
+     * {@link EmpresaEvent} lleva como estado anterior para los conteos; así
+     * ninguna otra transacción puede cambiarlos entre la consulta y el UPDATE.
+     * Las actualizaciones parciales que no los tocan se hacen con el UPDATE
+     * solo, sin consulta previa.
+     */
+    private EmpresaEntity updateFields(Long authorsId, EmpresaEntity empresaEntity, boolean partial) throws BusinessLogicException {
+        storeImage(empresaEntity);
+        EmpresaEntity previous = null;
+        if (!partial || empresaEntity.getCiudad() != null || empresaEntity.getAniocreacion() != null) {
+            previous = persistence.findForUpdate(authorsId, PREVIOUS_FIELDS);
+            if (previous == null) {
+                return null;
+            }
+            if (empresaEntity.getVersion() != null && !empresaEntity.getVersion().equals(previous.getVersion())) {
+                throw versionConflict(authorsId, previous.getVersion());
+            }
+            // La fila está bloqueada: el UPDATE se condiciona a la versión leída y,
+            // en un PUT, la respuesta se arma sin volver a consultar la empresa.
+            empresaEntity.setVersion(previous.getVersion());
+        }
+        EmpresaEntity newEmpresaEntity = persistence.updateFields(authorsId, empresaEntity, partial);
+        if (newEmpresaEntity == null && previous == null && empresaEntity.getVersion() != null) {
+            // Solo en el caso de fallo se consulta la empresa para saber por qué.
+            EmpresaVersion current = persistence.findVersion(authorsId);
+            if (current != null) {
+                throw versionConflict(authorsId, current.getVersion());
+            }
+        }
+        if (newEmpresaEntity != null) {
+            events.fire(new EmpresaEvent(EmpresaEvent.Type.UPDATE, newEmpresaEntity, previous));
+        }
         return newEmpresaEntity;
     }
 
+    private static BusinessLogicException versionConflict(Long authorsId, Long currentVersion) {
+        return new BusinessLogicException("La empresa con id = " + authorsId + " fue modificada por otra petición (versión actual " + currentVersion + ")");
+    }
+
+    /**
+     * Si la imagen de la empresa llega embebida como data URI en base64, la
+     * guarda en el almacén de imágenes y deja en la entidad solo la
+     * referencia, para que la fila de la empresa no cargue con los bytes. Si
+     * la transacción se revierte, el almacén borra la imagen que acaba de
+     * escribir.
+     */
+    private void storeImage(EmpresaEntity empresaEntity) throws BusinessLogicException {
+        if (!EmpresaImageStore.isDataUri(empresaEntity.getImage())) {
+            return;
+        }
+        try {
+            empresaEntity.setImage(images.storeDataUri(empresaEntity.getImage()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException(e.getMessage(), e);
+        }
+    }
 }
@@ -24,18 +24,26 @@ SOFTWARE.
 package co.edu.uniandes.csw.empresas.entities;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToMany;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 import uk.co.jemos.podam.common.PodamExclude;
 import uk.co.jemos.podam.common.PodamStrategyValue;
 
@@ -45,16 +53,47 @@ import uk.co.jemos.podam.common.PodamStrategyValue;
  * @author ISIS2603
  */
 @Entity
+@Table(indexes = {
+    @Index(name = "IDX_EMPRESA_CIUDAD", columnList = "ciudad, id"),
+    @Index(name = "IDX_EMPRESA_EMPRESA", columnList = "empresa"),
+    @Index(name = "IDX_EMPRESA_ANIOCREACION", columnList = "aniocreacion")
+})
 public class EmpresaEntity implements Serializable {
 
+    /**
+     * Número de ids que se reservan en cada consulta a la tabla de secuencias.
+     * Con IDENTITY cada persist necesitaba un INSERT inmediato para conocer el
+     * id; reservando los ids por bloques los INSERT se pueden enviar en lotes.
+     * Es el valor por defecto; se cambia sin recompilar con la propiedad del
+     * sistema <code>empresas.ids.allocationSize</code>
+     * ({@link IdAllocationCustomizer}).
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(name = "EmpresaSeq", table = "SEQUENCE", pkColumnName = "SEQ_NAME",
+            valueColumnName = "SEQ_COUNT", pkColumnValue = "EMPRESA_SEQ", allocationSize = ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "EmpresaSeq")
     private Long id;
     private String empresa;
     private String ciudad;
     private String image;
-    @Temporal(TemporalType.DATE)
-    private Date aniocreacion;
+    @Convert(converter = LocalDateConverter.class)
+    private LocalDate aniocreacion;
+    @Version
+    private Long version;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastModified;
+
+    /**
+     * Actualiza la fecha de última modificación cada vez que la empresa se
+     * crea o se actualiza.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        lastModified = new Date();
+    }
 
     /**
      * Devuelve el nombre del autor.
@@ -116,12 +155,43 @@ public class EmpresaEntity implements Serializable {
         this.id = id;
     }
 
-    public Date getAniocreacion() {
+    public LocalDate getAniocreacion() {
         return aniocreacion;
     }
 
-    public void setAniocreacion(Date aniocreacion) {
+    public void setAniocreacion(LocalDate aniocreacion) {
         this.aniocreacion = aniocreacion;
     }
 
+    /**
+     * Devuelve la versión de la empresa. JPA la incrementa en cada
+     * actualización y la usa para detectar modificaciones concurrentes.
+     *
+     * @return the version
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version to set
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the lastModified
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the lastModified to set
+     */
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.entities;
+
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.sequencing.Sequence;
+import org.eclipse.persistence.sessions.Session;
+
+/**
+ * Cambia al desplegar el número de ids que reservan los generadores de
+ * {@link EmpresaEntity} y {@link OutboxEntity} en cada consulta a la tabla de
+ * secuencias, sin recompilar las entidades.
+ *
+ * El número se lee de la propiedad del sistema
+ * <code>empresas.ids.allocationSize</code>; si no está definida se usa el
+ * de las anotaciones, {@link EmpresaEntity#ID_ALLOCATION_SIZE}. Cambiarlo
+ * entre reinicios es seguro: la tabla guarda el último id reservado y cada
+ * reserva empieza después de él.
+ *
+ * Se registra en persistence.xml con la propiedad
+ * <code>eclipselink.session.customizer</code>.
+ *
+ * @author ISIS2603
+ */
+public class IdAllocationCustomizer implements SessionCustomizer {
+
+    /**
+     * Secuencias que se ajustan. EclipseLink las nombra con el
+     * <code>pkColumnValue</code> de cada {@link javax.persistence.TableGenerator}.
+     */
+    static final String[] SEQUENCES = {"EMPRESA_SEQ", "OUTBOX_SEQ"};
+
+    @Override
+    public void customize(Session session) {
+        Integer size = Integer.getInteger("empresas.ids.allocationSize");
+        if (size == null) {
+            return;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("empresas.ids.allocationSize debe ser mayor que 0: " + size);
+        }
+        for (String name : SEQUENCES) {
+            Sequence sequence = session.getLogin().getSequence(name);
+            if (sequence != null) {
+                sequence.setPreallocationSize(size);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.entities;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Cambio de una empresa pendiente de enviar a las réplicas (patrón outbox).
+ *
+ * Las filas se escriben en la misma transacción que el cambio de la empresa,
+ * así que existen si y solo si el cambio llegó a la base de datos. Se borran
+ * después de entregarlas. El id identifica el cambio pero no su orden: los
+ * ids se reservan por bloques y las transacciones terminan en cualquier orden.
+ * El orden de los cambios de una misma empresa lo da su versión.
+ *
+ * @author ISIS2603
+ */
+@Entity
+@Table(name = "OUTBOX")
+public class OutboxEntity implements Serializable {
+
+    /**
+     * Longitud máxima del JSON de la empresa.
+     */
+    public static final int PAYLOAD_LENGTH = 4000;
+
+    @Id
+    @TableGenerator(name = "OutboxSeq", table = "SEQUENCE", pkColumnName = "SEQ_NAME",
+            valueColumnName = "SEQ_COUNT", pkColumnValue = "OUTBOX_SEQ", allocationSize = EmpresaEntity.ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "OutboxSeq")
+    private Long id;
+
+    private Long empresaId;
+
+    @Column(length = 16)
+    private String type;
+
+    private Long version;
+
+    @Column(length = PAYLOAD_LENGTH)
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    /**
+     * @return the id
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param id the id to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the empresaId
+     */
+    public Long getEmpresaId() {
+        return empresaId;
+    }
+
+    /**
+     * @param empresaId the empresaId to set
+     */
+    public void setEmpresaId(Long empresaId) {
+        this.empresaId = empresaId;
+    }
+
+    /**
+     * @return el tipo de cambio: CREATE, UPDATE o DELETE.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @param type the type to set
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @return la versión de la empresa después del cambio.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version to set
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return la empresa en JSON después del cambio o, si se borró, antes de
+     * borrarla.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * @param payload the payload to set
+     */
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * @return the createdAt
+     */
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @param createdAt the createdAt to set
+     */
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+/**
+ * Error de una fila del archivo importado.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaImportError {
+
+    private final long row;
+
+    private final String message;
+
+    /**
+     * @param row línea del archivo en la que empieza la fila, desde 1.
+     * @param message descripción del error.
+     */
+    public EmpresaImportError(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    /**
+     * @return línea del archivo en la que empieza la fila, desde 1.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * @return descripción del error.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "Línea " + row + ": " + message;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import java.util.Locale;
+
+/**
+ * Formatos de archivo que acepta {@link EmpresaImporter}.
+ *
+ * @author ISIS2603
+ */
+public enum EmpresaImportFormat {
+
+    /**
+     * CSV con una fila de encabezado con los nombres de los atributos de
+     * EmpresaDTO (<code>empresa</code>, <code>ciudad</code>,
+     * <code>image</code>, <code>aniocreacion</code>), en cualquier orden. Las
+     * demás columnas se ignoran. Los valores pueden ir entre comillas dobles,
+     * con las comillas internas duplicadas, y contener comas o saltos de
+     * línea.
+     */
+    CSV("text/csv"),
+    /**
+     * Un objeto JSON por línea, con los mismos atributos que EmpresaDTO. Los
+     * atributos id, version y lastModified se ignoran.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    EmpresaImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return el tipo de contenido del formato.
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param mediaType tipo de contenido, con o sin parámetros.
+     * @return el formato de ese tipo de contenido, o null si no se reconoce.
+     */
+    public static EmpresaImportFormat ofMediaType(String mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        int semicolon = mediaType.indexOf(';');
+        String type = (semicolon < 0 ? mediaType : mediaType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        for (EmpresaImportFormat format : values()) {
+            if (format.mediaType.equals(type)) {
+                return format;
+            }
+        }
+        return "application/jsonl".equals(type) ? NDJSON : null;
+    }
+
+    /**
+     * @param fileName nombre de un archivo.
+     * @return el formato según la extensión del archivo (.csv, .ndjson o
+     * .jsonl), o null si no se reconoce.
+     */
+    public static EmpresaImportFormat ofFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+}
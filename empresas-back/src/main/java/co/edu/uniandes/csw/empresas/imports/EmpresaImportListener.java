@@ -0,0 +1,54 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+/**
+ * Recibe el avance de una importación mientras se ejecuta.
+ *
+ * Los métodos se llaman siempre desde el mismo hilo, el que guarda las
+ * empresas, así que las implementaciones no necesitan sincronizarse; pero
+ * deben ser rápidas, porque mientras se ejecutan no se guarda nada.
+ *
+ * @author ISIS2603
+ */
+public interface EmpresaImportListener {
+
+    /**
+     * Una fila no se importó.
+     *
+     * @param error la fila y el motivo.
+     */
+    default void onError(EmpresaImportError error) {
+    }
+
+    /**
+     * Se terminó de guardar un bloque de empresas.
+     *
+     * @param read filas procesadas hasta ahora.
+     * @param imported empresas guardadas hasta ahora.
+     * @param failed filas con error hasta ahora.
+     */
+    default void onProgress(long read, long imported, long failed) {
+    }
+}
@@ -0,0 +1,178 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+
+/**
+ * Importa empresas desde la línea de comandos, sin pasar por el servidor de
+ * aplicaciones:
+ *
+ * <pre>
+ *   java -cp ... co.edu.uniandes.csw.empresas.imports.EmpresaImportMain archivo [csv|ndjson]
+ * </pre>
+ *
+ * Si no se da el formato se deduce de la extensión del archivo. El archivo se
+ * lee en UTF-8. Usa la unidad de persistencia DBParcialPU con transacciones
+ * locales y la conexión de persistence.xml, que se puede cambiar con las
+ * propiedades del sistema <code>empresas.import.jdbcUrl</code>,
+ * <code>empresas.import.jdbcUser</code> y
+ * <code>empresas.import.jdbcPassword</code>. Las imágenes embebidas se
+ * guardan en el directorio de la propiedad <code>empresas.images.dir</code>,
+ * que es obligatoria y debe ser el mismo que usa el servidor. El classpath
+ * debe incluir las dependencias de empresas-back, el driver de Derby y una
+ * implementación de JSON-P.
+ *
+ * Como no pasa por {@link co.edu.uniandes.csw.empresas.ejb.EmpresaLogic}, no
+ * escribe en el outbox ni actualiza los índices en memoria de un servidor en
+ * ejecución: está pensado para cargas iniciales, antes de desplegar o
+ * reiniciando la aplicación después.
+ *
+ * Los errores de cada fila se escriben en la salida de error y el resumen en
+ * la salida estándar. Termina con código 0 si todas las filas se importaron,
+ * 1 si alguna falló o la importación se detuvo y 2 si los argumentos no son
+ * válidos.
+ *
+ * @author ISIS2603
+ */
+public final class EmpresaImportMain {
+
+    private EmpresaImportMain() {
+    }
+
+    /**
+     * @param args archivo y, opcionalmente, formato.
+     * @throws Exception si no se puede abrir el archivo o la base de datos.
+     */
+    public static void main(String[] args) throws Exception {
+        EmpresaImportFormat format = null;
+        if (args.length == 2) {
+            try {
+                format = EmpresaImportFormat.valueOf(args[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                format = null;
+            }
+        } else if (args.length == 1) {
+            format = EmpresaImportFormat.ofFileName(args[0]);
+        }
+        if (format == null) {
+            System.err.println("Uso: EmpresaImportMain archivo [csv|ndjson]");
+            System.exit(2);
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("DBParcialPU", properties());
+        EmpresaImportSummary summary;
+        try {
+            EntityManager em = emf.createEntityManager();
+            EmpresaImporter importer = new EmpresaImporter(new EmpresaImageStore(), chunk -> write(em, chunk), Executors.defaultThreadFactory());
+            try (Reader input = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                summary = importer.run(input, format, new EmpresaImportListener() {
+                    private long lastPrinted;
+
+                    @Override
+                    public void onError(EmpresaImportError error) {
+                        System.err.println(error);
+                    }
+
+                    @Override
+                    public void onProgress(long read, long imported, long failed) {
+                        if (read - lastPrinted >= EmpresaImporter.PROGRESS_INTERVAL) {
+                            lastPrinted = read;
+                            System.err.println(read + " filas, " + imported + " empresas guardadas, " + failed + " con error");
+                        }
+                    }
+                });
+            } finally {
+                em.close();
+            }
+        } finally {
+            emf.close();
+        }
+        System.out.println(summary.getRead() + " filas, " + summary.getImported() + " empresas guardadas, "
+                + summary.getFailed() + " con error, en " + summary.getElapsedMillis() + " ms");
+        if (!summary.isCompleted()) {
+            System.out.println("La importación se detuvo: " + summary.getAbortMessage());
+        }
+        System.exit(summary.isCompleted() && summary.getFailed() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Guarda un grupo en una transacción local. Lo llama solo el hilo de
+     * escritura de {@link EmpresaImporter}.
+     */
+    private static void write(EntityManager em, List<EmpresaEntity> chunk) {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        try {
+            for (EmpresaEntity empresa : chunk) {
+                em.persist(empresa);
+            }
+            tx.commit();
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.clear();
+        }
+    }
+
+    /**
+     * @return las propiedades que cambian la unidad de persistencia del
+     * servidor a transacciones locales, sin borrar las tablas existentes.
+     */
+    static Map<String, String> properties() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("javax.persistence.transactionType", "RESOURCE_LOCAL");
+        properties.put("javax.persistence.jtaDataSource", "");
+        // persistence.xml usa drop-and-create para el servidor de desarrollo.
+        properties.put("javax.persistence.schema-generation.database.action", "none");
+        put(properties, "javax.persistence.jdbc.url", "empresas.import.jdbcUrl");
+        put(properties, "javax.persistence.jdbc.user", "empresas.import.jdbcUser");
+        put(properties, "javax.persistence.jdbc.password", "empresas.import.jdbcPassword");
+        return properties;
+    }
+
+    private static void put(Map<String, String> properties, String name, String systemProperty) {
+        String value = System.getProperty(systemProperty);
+        if (value != null) {
+            properties.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaLogic;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
+import java.io.Reader;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Importación de empresas dentro del servidor.
+ *
+ * Cada grupo de empresas se guarda con
+ * {@link EmpresaLogic#createAll(java.util.List)} en su propia transacción,
+ * así que se disparan los mismos {@link co.edu.uniandes.csw.empresas.ejb.EmpresaEvent}
+ * que en una creación normal: el outbox, el índice de búsqueda, los conteos y
+ * los cachés quedan al día con cada grupo.
+ *
+ * Para no saturar la base de datos, solo se ejecutan
+ * <code>empresas.import.maxConcurrent</code> importaciones a la vez (1 por
+ * defecto); las demás se rechazan.
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class EmpresaImportService {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaImportService.class.getName());
+
+    static final int MAX_CONCURRENT = Integer.getInteger("empresas.import.maxConcurrent", 1);
+
+    @Inject
+    private EmpresaLogic empresaLogic;
+
+    @Inject
+    private EmpresaImageStore images;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private final Semaphore permits = new Semaphore(MAX_CONCURRENT);
+
+    private final LongAdder imported = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Importa un archivo, si no hay ya demasiadas importaciones en curso.
+     *
+     * @param input el archivo. No se cierra.
+     * @param format formato del archivo.
+     * @return el resultado de la importación, o null si hay demasiadas
+     * importaciones en curso.
+     * @throws InterruptedException si se interrumpe el hilo que llama.
+     */
+    public EmpresaImportSummary importEmpresas(Reader input, EmpresaImportFormat format) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        try {
+            EmpresaImporter importer = new EmpresaImporter(images, empresaLogic::createAll, threadFactory);
+            return importer.run(input, format, new EmpresaImportListener() {
+                private long lastImported;
+
+                private long lastLogged;
+
+                @Override
+                public void onError(EmpresaImportError error) {
+                    failed.increment();
+                    LOGGER.log(Level.FINE, "Importación: {0}", error);
+                }
+
+                @Override
+                public void onProgress(long read, long importedSoFar, long failedSoFar) {
+                    imported.add(importedSoFar - lastImported);
+                    lastImported = importedSoFar;
+                    if (read - lastLogged >= EmpresaImporter.PROGRESS_INTERVAL) {
+                        lastLogged = read;
+                        LOGGER.log(Level.INFO, "Importación en curso: {0} filas, {1} empresas guardadas, {2} con error",
+                                new Object[]{read, importedSoFar, failedSoFar});
+                    }
+                }
+            });
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return número de importaciones en curso.
+     */
+    public int getRunning() {
+        return MAX_CONCURRENT - permits.availablePermits();
+    }
+
+    /**
+     * @return empresas guardadas por importaciones desde que se desplegó la
+     * aplicación.
+     */
+    public long getImported() {
+        return imported.sum();
+    }
+
+    /**
+     * @return filas importadas con error desde que se desplegó la aplicación.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+}
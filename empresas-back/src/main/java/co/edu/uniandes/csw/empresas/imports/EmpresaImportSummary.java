@@ -0,0 +1,112 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una importación.
+ *
+ * Solo se guardan los primeros errores (<code>empresas.import.maxErrors</code>,
+ * 100 por defecto); el resto se cuentan en {@link #getFailed()} y se
+ * reportan a {@link EmpresaImportListener#onError(EmpresaImportError)}.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaImportSummary {
+
+    private final long read;
+
+    private final long imported;
+
+    private final long failed;
+
+    private final long elapsedMillis;
+
+    private final String abortMessage;
+
+    private final List<EmpresaImportError> errors;
+
+    EmpresaImportSummary(long read, long imported, long failed, long elapsedMillis, String abortMessage, List<EmpresaImportError> errors) {
+        this.read = read;
+        this.imported = imported;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        this.abortMessage = abortMessage;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return filas procesadas, sin contar el encabezado ni las líneas en
+     * blanco.
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * @return empresas guardadas.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * @return filas que no se importaron por un error.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return duración de la importación en milisegundos.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return true si se procesó el archivo completo.
+     */
+    public boolean isCompleted() {
+        return abortMessage == null;
+    }
+
+    /**
+     * @return el motivo por el que la importación se detuvo antes del final
+     * del archivo, o null si se completó. Las empresas de los bloques ya
+     * guardados se quedan en la base de datos.
+     */
+    public String getAbortMessage() {
+        return abortMessage;
+    }
+
+    /**
+     * @return los primeros errores, en el orden en que se detectaron.
+     */
+    public List<EmpresaImportError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.exceptions.BusinessLogicException;
+import java.util.List;
+
+/**
+ * Guarda un bloque de empresas importadas.
+ *
+ * @author ISIS2603
+ */
+@FunctionalInterface
+public interface EmpresaImportWriter {
+
+    /**
+     * Guarda todas las empresas del bloque en una sola transacción: si falla
+     * no debe quedar guardada ninguna.
+     *
+     * @param chunk las empresas.
+     * @throws BusinessLogicException si alguna empresa no es válida.
+     */
+    void write(List<EmpresaEntity> chunk) throws BusinessLogicException;
+}
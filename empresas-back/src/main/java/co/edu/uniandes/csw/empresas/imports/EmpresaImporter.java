@@ -0,0 +1,485 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Importa empresas de un archivo CSV o NDJSON sin cargarlo completo en
+ * memoria.
+ *
+ * La importación es un pipeline de tres etapas unidas por colas acotadas:
+ * <ol>
+ * <li>El hilo que llama a {@link #run} lee el archivo, lo separa en filas con
+ * {@link EmpresaRecordReader} y las agrupa en bloques de
+ * <code>empresas.import.blockSize</code> filas (256 por defecto).</li>
+ * <li><code>empresas.import.parsers</code> hilos (uno por procesador por
+ * defecto) interpretan y validan cada bloque con {@link EmpresaRecords}.</li>
+ * <li>Un hilo junta las empresas válidas en grupos de
+ * <code>empresas.import.chunkSize</code> (1000 por defecto) y guarda cada
+ * grupo en una transacción con el {@link EmpresaImportWriter}.</li>
+ * </ol>
+ * Las colas tienen <code>empresas.import.queueSize</code> bloques (16 por
+ * defecto). Cuando la base de datos es más lenta que la lectura, las colas se
+ * llenan y las etapas anteriores esperan; así la memoria usada no depende del
+ * tamaño del archivo. Los bloques se guardan en el orden en que terminan de
+ * interpretarse, que no es necesariamente el del archivo.
+ *
+ * Si un grupo falla, sus empresas se guardan una por una para reportar solo
+ * las filas con error. Si ninguna de ellas se puede guardar por un error que
+ * no es de validación (por ejemplo, la base de datos no responde), la
+ * importación se detiene. También se detiene si no se puede leer el archivo.
+ * En los dos casos los grupos ya guardados se quedan en la base de datos.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaImporter.class.getName());
+
+    static final int BLOCK_SIZE = Integer.getInteger("empresas.import.blockSize", 256);
+
+    static final int CHUNK_SIZE = Integer.getInteger("empresas.import.chunkSize", 1000);
+
+    static final int PARSERS = Integer.getInteger("empresas.import.parsers", Runtime.getRuntime().availableProcessors());
+
+    static final int QUEUE_SIZE = Integer.getInteger("empresas.import.queueSize", 16);
+
+    static final int MAX_ERRORS = Integer.getInteger("empresas.import.maxErrors", 100);
+
+    /**
+     * Cada cuántas filas se reporta el avance en el log o en la consola.
+     */
+    static final long PROGRESS_INTERVAL = Long.getLong("empresas.import.progressInterval", 100_000L);
+
+    /**
+     * Número máximo de caracteres de una fila. Es alto porque las imágenes
+     * pueden venir embebidas como data URI; su función es detener la
+     * importación cuando falta una comilla de cierre en un CSV, en lugar de
+     * leer el resto del archivo como una sola fila.
+     */
+    static final int MAX_RECORD_CHARS = Integer.getInteger("empresas.import.maxRecordChars", 8 << 20);
+
+    /**
+     * Tiempo máximo que una etapa espera en una cola antes de revisar si la
+     * importación se detuvo.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final EmpresaImageStore images;
+
+    private final EmpresaImportWriter writer;
+
+    private final ThreadFactory threads;
+
+    /**
+     * Constructor.
+     *
+     * @param images almacén de las imágenes que llegan como data URI.
+     * @param writer guarda cada grupo de empresas en una transacción.
+     * @param threads crea los hilos de las etapas de interpretación y de
+     * escritura. En el servidor debe ser un ManagedThreadFactory para que el
+     * writer pueda llamar a los EJB.
+     */
+    public EmpresaImporter(EmpresaImageStore images, EmpresaImportWriter writer, ThreadFactory threads) {
+        this.images = images;
+        this.writer = writer;
+        this.threads = threads;
+    }
+
+    /**
+     * Importa un archivo. Retorna cuando se terminó de guardar o cuando la
+     * importación se detuvo por un error, y en los dos casos solo después de
+     * que terminaron los hilos de las etapas, así que ningún grupo se guarda
+     * después de retornar.
+     *
+     * @param input el archivo. No se cierra.
+     * @param format formato del archivo.
+     * @param listener recibe el avance y los errores de cada fila.
+     * @return el resultado de la importación.
+     * @throws InterruptedException si se interrumpe el hilo que llama; la
+     * importación se detiene.
+     */
+    public EmpresaImportSummary run(Reader input, EmpresaImportFormat format, EmpresaImportListener listener) throws InterruptedException {
+        return new Run(format, listener).run(input);
+    }
+
+    /**
+     * Filas leídas del archivo, sin interpretar.
+     */
+    private static final class RawBlock {
+
+        final long[] rows = new long[BLOCK_SIZE];
+
+        final String[] records = new String[BLOCK_SIZE];
+
+        int size;
+    }
+
+    /**
+     * Resultado de interpretar un {@link RawBlock}.
+     */
+    private static final class ParsedBlock {
+
+        final int read;
+
+        final List<EmpresaEntity> entities;
+
+        final long[] rows;
+
+        final List<EmpresaImportError> errors;
+
+        ParsedBlock(int read) {
+            this.read = read;
+            this.entities = new ArrayList<>(read);
+            this.rows = new long[read];
+            this.errors = new ArrayList<>(0);
+        }
+    }
+
+    private static final RawBlock RAW_END = new RawBlock();
+
+    private static final ParsedBlock PARSED_END = new ParsedBlock(0);
+
+    /**
+     * Estado de una importación.
+     */
+    private final class Run {
+
+        private final EmpresaImportFormat format;
+
+        private final EmpresaImportListener listener;
+
+        private final BlockingQueue<RawBlock> raw = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+        private final BlockingQueue<ParsedBlock> parsed = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+        /**
+         * Motivo por el que se detuvo la importación, o null si sigue.
+         */
+        private volatile String abortMessage;
+
+        private volatile EmpresaRecords records;
+
+        // Solo los usa el hilo de escritura; el hilo que llama los lee después de join().
+        private long read;
+
+        private long imported;
+
+        private long failed;
+
+        private final List<EmpresaImportError> errors = new ArrayList<>();
+
+        private final List<EmpresaEntity> chunk = new ArrayList<>(CHUNK_SIZE + BLOCK_SIZE);
+
+        private final long[] chunkRows = new long[CHUNK_SIZE + BLOCK_SIZE];
+
+        Run(EmpresaImportFormat format, EmpresaImportListener listener) {
+            this.format = format;
+            this.listener = listener;
+        }
+
+        EmpresaImportSummary run(Reader input) throws InterruptedException {
+            long start = System.nanoTime();
+            List<Thread> started = new ArrayList<>(PARSERS + 1);
+            try {
+                start(this::write, "empresas-import-writer", started);
+                for (int i = 0; i < PARSERS; i++) {
+                    start(this::parse, "empresas-import-parser-" + i, started);
+                }
+                readAll(input);
+            } catch (InterruptedException e) {
+                abort("La importación fue interrumpida");
+                for (Thread thread : started) {
+                    thread.interrupt();
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                // Por ejemplo, si no se pudo crear alguno de los hilos.
+                LOGGER.log(Level.SEVERE, "Falló la importación", e);
+                abort("Error inesperado: " + messageOf(e));
+            } finally {
+                joinAll(started);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.log(Level.INFO, "Importación terminada en {0} ms: {1} filas, {2} empresas guardadas, {3} con error{4}",
+                    new Object[]{millis, read, imported, failed, abortMessage == null ? "" : "; detenida: " + abortMessage});
+            return new EmpresaImportSummary(read, imported, failed, millis, abortMessage, errors);
+        }
+
+        /**
+         * Espera a que terminen los hilos de las etapas. Si se interrumpe el
+         * hilo que espera, detiene la importación y sigue esperando: un hilo
+         * de escritura que está guardando un grupo termina al acabar ese
+         * grupo.
+         */
+        private void joinAll(List<Thread> started) {
+            boolean interrupted = false;
+            for (Thread thread : started) {
+                while (thread.isAlive()) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        abort("La importación fue interrumpida");
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private Thread start(Runnable task, String name, List<Thread> started) {
+            Thread thread = threads.newThread(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    LOGGER.log(Level.SEVERE, "Falló el hilo " + name + " de la importación", e);
+                    abort("Error inesperado en el hilo " + name + ": " + e);
+                }
+            });
+            thread.setName(name);
+            started.add(thread);
+            thread.start();
+            return thread;
+        }
+
+        /**
+         * Primera etapa: separa el archivo en bloques de filas.
+         */
+        private void readAll(Reader input) throws InterruptedException {
+            EmpresaRecordReader reader = new EmpresaRecordReader(input, format, MAX_RECORD_CHARS);
+            try {
+                if (format == EmpresaImportFormat.CSV) {
+                    String header = reader.next();
+                    if (header == null) {
+                        abort("El archivo está vacío");
+                        return;
+                    }
+                    records = EmpresaRecords.csv(images, header);
+                } else {
+                    records = EmpresaRecords.ndjson(images);
+                }
+                RawBlock block = new RawBlock();
+                String record;
+                while ((record = reader.next()) != null) {
+                    block.rows[block.size] = reader.getRow();
+                    block.records[block.size++] = record;
+                    if (block.size == BLOCK_SIZE) {
+                        if (!put(raw, block)) {
+                            return;
+                        }
+                        block = new RawBlock();
+                    }
+                }
+                if (block.size > 0 && !put(raw, block)) {
+                    return;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                abort(e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                // Por ejemplo, el cuerpo descomprimido supera el límite del servidor.
+                LOGGER.log(Level.WARNING, "No se pudo leer el archivo de la importación", e);
+                abort("No se pudo leer el archivo: " + messageOf(e));
+                return;
+            } finally {
+                // Una marca de fin por hilo de interpretación.
+                for (int i = 0; i < PARSERS; i++) {
+                    if (!put(raw, RAW_END)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Segunda etapa: interpreta y valida los bloques.
+         */
+        private void parse() {
+            try {
+                RawBlock block;
+                while ((block = take(raw)) != null && block != RAW_END) {
+                    ParsedBlock result = new ParsedBlock(block.size);
+                    for (int i = 0; i < block.size; i++) {
+                        try {
+                            result.rows[result.entities.size()] = block.rows[i];
+                            result.entities.add(records.parse(block.records[i]));
+                        } catch (IllegalArgumentException e) {
+                            result.errors.add(new EmpresaImportError(block.rows[i], e.getMessage()));
+                        } catch (RuntimeException e) {
+                            result.errors.add(new EmpresaImportError(block.rows[i], messageOf(e)));
+                        }
+                    }
+                    if (!put(parsed, result)) {
+                        return;
+                    }
+                }
+                put(parsed, PARSED_END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Tercera etapa: guarda las empresas en grupos.
+         */
+        private void write() {
+            int ended = 0;
+            try {
+                while (ended < PARSERS) {
+                    ParsedBlock block = take(parsed);
+                    if (block == null) {
+                        return;
+                    }
+                    if (block == PARSED_END) {
+                        ended++;
+                        continue;
+                    }
+                    read += block.read;
+                    for (EmpresaImportError error : block.errors) {
+                        error(error);
+                    }
+                    for (int i = 0; i < block.entities.size(); i++) {
+                        chunkRows[chunk.size()] = block.rows[i];
+                        chunk.add(block.entities.get(i));
+                    }
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        flush();
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty() || abortMessage != null) {
+                return;
+            }
+            try {
+                writer.write(chunk);
+                imported += chunk.size();
+            } catch (BusinessLogicException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Falló un grupo de " + chunk.size() + " empresas; se guardan una por una", e);
+                writeOneByOne();
+            }
+            chunk.clear();
+            listener.onProgress(read, imported, failed);
+        }
+
+        private void writeOneByOne() {
+            RuntimeException unexpected = null;
+            boolean any = false;
+            for (int i = 0; i < chunk.size() && abortMessage == null; i++) {
+                EmpresaEntity entity = chunk.get(i);
+                // El intento anterior pudo asignar un id que se deshizo con la transacción.
+                entity.setId(null);
+                entity.setVersion(null);
+                try {
+                    writer.write(Collections.singletonList(entity));
+                    imported++;
+                    any = true;
+                } catch (BusinessLogicException e) {
+                    error(new EmpresaImportError(chunkRows[i], e.getMessage()));
+                } catch (RuntimeException e) {
+                    unexpected = e;
+                    error(new EmpresaImportError(chunkRows[i], messageOf(e)));
+                }
+            }
+            if (!any && unexpected != null) {
+                LOGGER.log(Level.WARNING, "No se pudo guardar ninguna empresa del grupo; se detiene la importación", unexpected);
+                abort("No se pudieron guardar las empresas: " + messageOf(unexpected));
+            }
+        }
+
+        private void error(EmpresaImportError error) {
+            failed++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+            listener.onError(error);
+        }
+
+        private void abort(String message) {
+            if (abortMessage == null) {
+                abortMessage = message;
+            }
+        }
+
+        /**
+         * @return false si la importación se detuvo antes de poder encolar.
+         */
+        private <T> boolean put(BlockingQueue<T> queue, T item) throws InterruptedException {
+            while (abortMessage == null) {
+                if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return el siguiente elemento, o null si la importación se detuvo.
+         */
+        private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            while (abortMessage == null) {
+                T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return el mensaje de la causa más interna que tenga uno; las
+     * excepciones de EJB y JPA envuelven la que explica el error.
+     */
+    static String messageOf(Throwable e) {
+        String message = e.toString();
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null) {
+                message = t.getMessage();
+            }
+        }
+        return message;
+    }
+}
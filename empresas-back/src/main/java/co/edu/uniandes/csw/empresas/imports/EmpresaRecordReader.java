@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Separa el archivo importado en filas, sin interpretarlas.
+ *
+ * Es la única parte de la importación que recorre el archivo en un solo hilo,
+ * así que solo busca los saltos de línea: en NDJSON cada línea es una fila y
+ * en CSV además se siguen las comillas, porque un valor entre comillas puede
+ * contener saltos de línea. Las líneas en blanco se saltan y el BOM inicial
+ * se descarta.
+ *
+ * @author ISIS2603
+ */
+final class EmpresaRecordReader {
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader in;
+
+    private final boolean csv;
+
+    private final int maxChars;
+
+    private final char[] buffer = new char[1 << 16];
+
+    private int position;
+
+    private int length;
+
+    private long lines;
+
+    private final StringBuilder record = new StringBuilder(256);
+
+    private boolean started;
+
+    private long row;
+
+    /**
+     * @param in archivo.
+     * @param format formato del archivo.
+     * @param maxChars número máximo de caracteres de una fila.
+     */
+    EmpresaRecordReader(Reader in, EmpresaImportFormat format, int maxChars) {
+        this.in = in;
+        this.csv = format == EmpresaImportFormat.CSV;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Lee la siguiente fila.
+     *
+     * @return la fila, sin el salto de línea final, o null si se llegó al final
+     * del archivo.
+     * @throws IOException si no se puede leer el archivo o una fila tiene más
+     * de maxChars caracteres.
+     */
+    String next() throws IOException {
+        while (true) {
+            record.setLength(0);
+            row = lines + 1;
+            boolean quoted = false;
+            int c;
+            while ((c = read()) >= 0) {
+                if (!started) {
+                    started = true;
+                    if (c == BOM) {
+                        continue;
+                    }
+                }
+                if (c == '\n') {
+                    lines++;
+                    if (!quoted) {
+                        break;
+                    }
+                } else if (c == '"' && csv) {
+                    quoted = !quoted;
+                }
+                if (record.length() == maxChars) {
+                    throw new IOException("La fila de la línea " + row + " tiene más de " + maxChars + " caracteres"
+                            + (quoted ? "; puede faltar una comilla de cierre" : ""));
+                }
+                record.append((char) c);
+            }
+            int end = record.length();
+            if (end > 0 && record.charAt(end - 1) == '\r') {
+                record.setLength(end - 1);
+            }
+            if (!isBlank(record)) {
+                return record.toString();
+            }
+            if (c < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return línea del archivo en la que empieza la última fila leída, desde
+     * 1.
+     */
+    long getRow() {
+        return row;
+    }
+
+    private int read() throws IOException {
+        if (position == length) {
+            length = in.read(buffer);
+            position = 0;
+            if (length <= 0) {
+                length = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.imports;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaImageStore;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Convierte las filas del archivo importado en {@link EmpresaEntity} y las
+ * valida.
+ *
+ * Es inmutable: la usan a la vez todos los hilos que interpretan filas. Las
+ * imágenes que llegan como data URI se guardan aquí en el
+ * {@link EmpresaImageStore}, para que la decodificación y el hash también se
+ * hagan en paralelo.
+ *
+ * @author ISIS2603
+ */
+final class EmpresaRecords {
+
+    /**
+     * Longitud máxima de los textos, la de las columnas VARCHAR que genera
+     * JPA por defecto.
+     */
+    static final int MAX_LENGTH = 255;
+
+    private static final JsonReaderFactory JSON = Json.createReaderFactory(null);
+
+    private static final String EMPRESA = "empresa";
+
+    private static final String CIUDAD = "ciudad";
+
+    private static final String IMAGE = "image";
+
+    private static final String ANIOCREACION = "aniocreacion";
+
+    private static final String[] COLUMNS = {EMPRESA, CIUDAD, IMAGE, ANIOCREACION};
+
+    private final EmpresaImageStore images;
+
+    /**
+     * Posición de cada atributo de {@link #COLUMNS} en las filas CSV, o -1 si
+     * el archivo no lo trae. Es null en NDJSON.
+     */
+    private final int[] columns;
+
+    private EmpresaRecords(EmpresaImageStore images, int[] columns) {
+        this.images = images;
+        this.columns = columns;
+    }
+
+    /**
+     * @param images almacén de las imágenes que llegan como data URI.
+     * @return el intérprete de filas NDJSON.
+     */
+    static EmpresaRecords ndjson(EmpresaImageStore images) {
+        return new EmpresaRecords(images, null);
+    }
+
+    /**
+     * @param images almacén de las imágenes que llegan como data URI.
+     * @param header la fila de encabezado del CSV.
+     * @return el intérprete de las filas CSV con ese encabezado.
+     * @throws IllegalArgumentException si el encabezado no es válido o no
+     * tiene la columna empresa.
+     */
+    static EmpresaRecords csv(EmpresaImageStore images, String header) {
+        int[] columns = {-1, -1, -1, -1};
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            for (int j = 0; j < COLUMNS.length; j++) {
+                if (COLUMNS[j].equals(name)) {
+                    if (columns[j] >= 0) {
+                        throw new IllegalArgumentException("El encabezado tiene dos veces la columna " + name);
+                    }
+                    columns[j] = i;
+                }
+            }
+        }
+        if (columns[0] < 0) {
+            throw new IllegalArgumentException("El encabezado no tiene la columna " + EMPRESA);
+        }
+        return new EmpresaRecords(images, columns);
+    }
+
+    /**
+     * Interpreta y valida una fila.
+     *
+     * @param record la fila, sin el salto de línea final.
+     * @return la empresa, sin id.
+     * @throws IllegalArgumentException si la fila no es válida.
+     */
+    EmpresaEntity parse(String record) {
+        if (columns == null) {
+            JsonObject json;
+            try (JsonReader reader = JSON.createReader(new StringReader(record))) {
+                json = reader.readObject();
+            } catch (JsonException e) {
+                throw new IllegalArgumentException("La línea no es un objeto JSON válido", e);
+            }
+            return toEntity(string(json, EMPRESA), string(json, CIUDAD), string(json, IMAGE), string(json, ANIOCREACION));
+        }
+        List<String> fields = split(record);
+        return toEntity(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3));
+    }
+
+    private EmpresaEntity toEntity(String empresa, String ciudad, String image, String aniocreacion) {
+        EmpresaEntity entity = new EmpresaEntity();
+        entity.setEmpresa(text(EMPRESA, empresa));
+        if (entity.getEmpresa() == null) {
+            throw new IllegalArgumentException("El nombre de la empresa es obligatorio");
+        }
+        entity.setCiudad(text(CIUDAD, ciudad));
+        String trimmed = image == null ? null : image.trim();
+        if (EmpresaImageStore.isDataUri(trimmed)) {
+            entity.setImage(images.storeDataUri(trimmed));
+        } else {
+            entity.setImage(text(IMAGE, trimmed));
+        }
+        String fecha = text(ANIOCREACION, aniocreacion);
+        if (fecha != null) {
+            try {
+                entity.setAniocreacion(LocalDate.parse(fecha));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("La fecha de creación \"" + fecha + "\" no tiene el formato yyyy-MM-dd", e);
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * @return el texto sin espacios al inicio y al final, o null si queda
+     * vacío.
+     */
+    private static String text(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        if (trimmed.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("El atributo " + name + " tiene más de " + MAX_LENGTH + " caracteres");
+        }
+        return trimmed;
+    }
+
+    private String field(List<String> fields, int column) {
+        int index = columns[column];
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String string(JsonObject json, String name) {
+        JsonValue value = json.get(name);
+        if (value == null || value.getValueType() == JsonValue.ValueType.NULL) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.STRING) {
+            throw new IllegalArgumentException("El atributo " + name + " debe ser un texto");
+        }
+        return ((JsonString) value).getString();
+    }
+
+    /**
+     * Separa los valores de una fila CSV.
+     *
+     * @param record la fila.
+     * @return los valores, sin las comillas que los rodean.
+     * @throws IllegalArgumentException si las comillas no están balanceadas.
+     */
+    static List<String> split(String record) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        int n = record.length();
+        int i = 0;
+        while (true) {
+            if (i < n && record.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        throw new IllegalArgumentException("Falta la comilla de cierre del valor " + (fields.size() + 1));
+                    }
+                    char c = record.charAt(i++);
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i < n && record.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < n && record.charAt(i) != ',') {
+                    throw new IllegalArgumentException("El valor " + (fields.size() + 1) + " tiene texto después de la comilla de cierre");
+                }
+                fields.add(value.toString());
+            } else {
+                int comma = record.indexOf(',', i);
+                if (comma < 0) {
+                    comma = n;
+                }
+                fields.add(record.substring(i, comma));
+                i = comma;
+            }
+            if (i >= n) {
+                return fields;
+            }
+            // Se salta la coma.
+            i++;
+        }
+    }
+}
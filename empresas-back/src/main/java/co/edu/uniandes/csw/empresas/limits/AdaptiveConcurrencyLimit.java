@@ -0,0 +1,267 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.limits;
+
+import co.edu.uniandes.csw.empresas.metrics.LatencyHistogram;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Límite global de peticiones concurrentes que se ajusta según la latencia de
+ * la base de datos (AIMD).
+ *
+ * Cada consulta de {@link co.edu.uniandes.csw.empresas.persistence.EmpresaPersistence}
+ * que llega a la base de datos reporta su latencia con
+ * {@link #onSample(Object, long)}. La latencia se compara con la línea base de
+ * su operación: cada operación (por ejemplo, buscar por id o crear un lote)
+ * tiene la suya, porque sus tiempos normales son muy distintos. Si la latencia
+ * supera la línea base por más de la tolerancia, la base de datos se está
+ * encolando y el límite se reduce en un 10% (a lo sumo una vez por
+ * intervalo); si no, el límite crece en aproximadamente una petición por cada
+ * <code>limit</code> consultas.
+ *
+ * Las latencias de cada operación se agrupan en ventanas de
+ * {@value #WINDOW_SECONDS} segundos. La línea base es el menor de los
+ * percentiles 10 de las últimas {@value #WINDOWS} ventanas con al menos
+ * {@value #MIN_SAMPLES} muestras: una consulta excepcionalmente rápida no la
+ * fija, y un minuto de congestión tampoco la sube mientras haya una ventana
+ * reciente sin congestión. Mientras una operación no tenga una ventana
+ * completa, sus muestras no cambian el límite.
+ *
+ * El estado del límite está en variables atómicas: no hay candados.
+ *
+ * Se configura con las propiedades del sistema
+ * <code>empresas.limit.initial</code> (16), <code>empresas.limit.min</code>
+ * (4), <code>empresas.limit.max</code> (64) y
+ * <code>empresas.limit.tolerance</code> (2.0).
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * Tiempo mínimo entre dos reducciones del límite, para que una ráfaga de
+     * consultas lentas no lo lleve al mínimo de una vez.
+     */
+    private static final long DECREASE_INTERVAL_NANOS = 100_000_000L;
+
+    static final int WINDOW_SECONDS = 10;
+
+    static final int WINDOWS = 6;
+
+    static final int MIN_SAMPLES = 20;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(WINDOW_SECONDS);
+
+    private static final double BASELINE_QUANTILE = 0.1;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    /**
+     * Límite actual, como los bits de un double.
+     */
+    private final AtomicLong limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentMap<Object, Operation> operations = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    /**
+     * Constructor con la configuración de las propiedades del sistema.
+     */
+    public AdaptiveConcurrencyLimit() {
+        this(Integer.getInteger("empresas.limit.initial", 16), Integer.getInteger("empresas.limit.min", 4),
+                Integer.getInteger("empresas.limit.max", 64), Double.parseDouble(System.getProperty("empresas.limit.tolerance", "2.0")));
+    }
+
+    /**
+     * Constructor con una configuración explícita.
+     *
+     * @param initial límite inicial.
+     * @param minLimit límite mínimo.
+     * @param maxLimit límite máximo.
+     * @param tolerance cuántas veces la línea base puede ser la latencia sin
+     * reducir el límite.
+     */
+    public AdaptiveConcurrencyLimit(int initial, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initial))));
+    }
+
+    /**
+     * Intenta admitir una petición.
+     *
+     * @return true si la petición se admite; en ese caso se debe llamar a
+     * {@link #release()} cuando termine.
+     */
+    public boolean tryAcquire() {
+        int max = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera una petición admitida con {@link #tryAcquire()}.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Ajusta el límite con la latencia de una consulta.
+     *
+     * @param operation la operación, por ejemplo el método interceptado. Debe
+     * ser una de pocas llaves fijas.
+     * @param nanos latencia de la consulta en nanosegundos.
+     */
+    public void onSample(Object operation, long nanos) {
+        long now = System.nanoTime();
+        Operation op = operations.get(operation);
+        if (op == null) {
+            op = operations.computeIfAbsent(operation, key -> new Operation(now));
+        }
+        long baseline = op.record(nanos, now);
+        if (baseline == Long.MAX_VALUE) {
+            return;
+        }
+        if (nanos > baseline * tolerance) {
+            long last = lastDecrease.get();
+            if (now - last >= DECREASE_INTERVAL_NANOS && lastDecrease.compareAndSet(last, now)) {
+                update(0.9, 0.0);
+            }
+        } else if (inFlight.get() * 2 >= getLimit()) {
+            // Solo se crece cuando el límite se está usando; de lo contrario crecería sin medir nada.
+            double current = Double.longBitsToDouble(limit.get());
+            update(1.0, 1.0 / current);
+        }
+    }
+
+
+    private void update(double factor, double increment) {
+        while (true) {
+            long bits = limit.get();
+            double next = Math.max(minLimit, Math.min(maxLimit, Double.longBitsToDouble(bits) * factor + increment));
+            if (limit.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return el límite actual de peticiones concurrentes.
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    /**
+     * @return el número de peticiones admitidas que no han terminado.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @param operation la operación.
+     * @return la línea base de latencia de la operación en nanosegundos, o
+     * {@link Long#MAX_VALUE} si aún no tiene una ventana completa.
+     */
+    public long getBaselineNanos(Object operation) {
+        Operation op = operations.get(operation);
+        return op == null ? Long.MAX_VALUE : op.baselineNanos;
+    }
+
+    /**
+     * Latencias recientes de una operación.
+     */
+    private static final class Operation {
+
+        private final AtomicLong windowStart;
+
+        private volatile LatencyHistogram window = new LatencyHistogram();
+
+        private volatile long baselineNanos = Long.MAX_VALUE;
+
+        /**
+         * Percentil de cada una de las últimas ventanas, en nanosegundos, o
+         * {@link Long#MAX_VALUE} si la ventana tuvo pocas muestras. Solo lo
+         * usa el hilo que cierra la ventana.
+         */
+        private final long[] quantiles = new long[WINDOWS];
+
+        private int next;
+
+        Operation(long now) {
+            windowStart = new AtomicLong(now);
+            Arrays.fill(quantiles, Long.MAX_VALUE);
+        }
+
+        /**
+         * @return la línea base vigente, en nanosegundos.
+         */
+        long record(long nanos, long now) {
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                roll();
+            }
+            window.record(nanos);
+            return baselineNanos;
+        }
+
+        private void roll() {
+            LatencyHistogram closed = window;
+            window = new LatencyHistogram();
+            quantiles[next] = closed.getCount() >= MIN_SAMPLES
+                    ? TimeUnit.MICROSECONDS.toNanos(closed.quantileMicros(BASELINE_QUANTILE))
+                    : Long.MAX_VALUE;
+            next = (next + 1) % WINDOWS;
+            long baseline = Long.MAX_VALUE;
+            for (long quantile : quantiles) {
+                baseline = Math.min(baseline, quantile);
+            }
+            baselineNanos = baseline;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.limits;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Interceptor que reporta la latencia de los métodos anotados con
+ * {@link LatencySampled} al {@link AdaptiveConcurrencyLimit}, con el método
+ * como operación. No se reportan las llamadas que terminan con excepción ni
+ * las que se marcan con {@link #skipSample()}, porque su latencia no refleja
+ * la carga de la base de datos.
+ *
+ * @author ISIS2603
+ */
+@LatencySampled
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class LatencySampledInterceptor {
+
+    /**
+     * Por hilo, si la invocación interceptada en curso pidió no reportarse.
+     */
+    private static final ThreadLocal<boolean[]> SKIP = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    @Inject
+    private AdaptiveConcurrencyLimit limit;
+
+    /**
+     * Pide no reportar la latencia de la invocación interceptada en curso en
+     * este hilo; por ejemplo, cuando se respondió desde un caché sin consultar
+     * la base de datos.
+     */
+    public static void skipSample() {
+        SKIP.get()[0] = true;
+    }
+
+    /**
+     * Mide la invocación del método.
+     *
+     * @param context invocación interceptada.
+     * @return el resultado del método.
+     * @throws Exception la excepción que lance el método.
+     */
+    @AroundInvoke
+    public Object sample(InvocationContext context) throws Exception {
+        boolean[] skip = SKIP.get();
+        boolean outer = skip[0];
+        skip[0] = false;
+        try {
+            long start = System.nanoTime();
+            Object result = context.proceed();
+            if (!skip[0]) {
+                limit.onSample(context.getMethod(), System.nanoTime() - start);
+            }
+            return result;
+        } finally {
+            skip[0] = outer;
+        }
+    }
+}
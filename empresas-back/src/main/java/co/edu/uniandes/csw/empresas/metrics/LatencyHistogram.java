@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con buckets logarítmico-lineales, al estilo de
+ * HdrHistogram.
+ *
+ * Los valores se guardan en microsegundos. Cada potencia de dos se divide en
+ * {@value #SUB_BUCKETS} buckets del mismo ancho, así que el error relativo de
+ * cada bucket es a lo sumo 25% sin importar la magnitud. Registrar un valor
+ * solo calcula un índice e incrementa un contador atómico: no reserva memoria
+ * ni toma candados.
+ *
+ * @author ISIS2603
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Mayor exponente con buckets propios; los valores mayores (más de 2^36
+     * microsegundos) van al último bucket.
+     */
+    private static final int MAX_EXPONENT = 36;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sumMicros = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos duración en nanosegundos.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(indexOf(micros));
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+    }
+
+    /**
+     * @return número de latencias registradas.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return suma de las latencias registradas, en microsegundos.
+     */
+    public long getSumMicros() {
+        return sumMicros.get();
+    }
+
+    /**
+     * Cuenta las latencias registradas menores que 2^exponent microsegundos.
+     * Los límites de los buckets coinciden con las potencias de dos, así que
+     * el resultado es exacto.
+     *
+     * @param exponent exponente entre 0 y {@value #MAX_EXPONENT}.
+     * @return número de latencias menores que 2^exponent microsegundos.
+     */
+    public long countBelowPowerOfTwo(int exponent) {
+        // Los valores de [2^e, 2^(e+1)) están en los buckets del índice indexOf(2^e) en adelante.
+        int end = Math.min(BUCKET_COUNT, indexOf(1L << exponent));
+        long total = 0;
+        for (int i = 0; i < end; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Estima un percentil a partir de los buckets.
+     *
+     * @param quantile valor entre 0 y 1, por ejemplo 0.99.
+     * @return el límite superior, en microsegundos, del bucket donde cae el
+     * percentil, o 0 si no hay latencias registradas.
+     */
+    public long quantileMicros(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0L;
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1L;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Registro de las métricas de la aplicación.
+ *
+ * Hay dos grupos de operaciones: los endpoints REST y los métodos de la
+ * lógica y la persistencia marcados con {@link Timed}. Las métricas de cada
+ * operación se crean la primera vez que se usa; después, encontrarlas a partir
+ * del {@link Method} es una consulta en un mapa concurrente que no reserva
+ * memoria.
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class MetricsRegistry {
+
+    private final Group endpoints = new Group();
+
+    private final Group methods = new Group();
+
+    /**
+     * @param method método de un recurso REST.
+     * @return las métricas del endpoint.
+     */
+    public OperationMetrics endpoint(Method method) {
+        return endpoints.of(method);
+    }
+
+    /**
+     * @param name nombre de una operación que no corresponde a un método, por
+     * ejemplo las peticiones que no llegan a ningún recurso.
+     * @return las métricas del endpoint.
+     */
+    public OperationMetrics endpoint(String name) {
+        return endpoints.of(name);
+    }
+
+    /**
+     * @param method método de la lógica o la persistencia.
+     * @return las métricas del método.
+     */
+    public OperationMetrics method(Method method) {
+        return methods.of(method);
+    }
+
+    /**
+     * @return las métricas de los endpoints, ordenadas por nombre.
+     */
+    public List<OperationMetrics> getEndpoints() {
+        return endpoints.sorted();
+    }
+
+    /**
+     * @return las métricas de los métodos, ordenadas por nombre.
+     */
+    public List<OperationMetrics> getMethods() {
+        return methods.sorted();
+    }
+
+    /**
+     * Métricas de un grupo de operaciones. Los métodos sobrecargados
+     * comparten las métricas, porque su nombre es el mismo.
+     */
+    private static final class Group {
+
+        private final ConcurrentMap<Method, OperationMetrics> byMethod = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, OperationMetrics> byName = new ConcurrentHashMap<>();
+
+        OperationMetrics of(Method method) {
+            OperationMetrics metrics = byMethod.get(method);
+            if (metrics == null) {
+                metrics = of(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+                byMethod.putIfAbsent(method, metrics);
+            }
+            return metrics;
+        }
+
+        OperationMetrics of(String name) {
+            OperationMetrics metrics = byName.get(name);
+            if (metrics == null) {
+                OperationMetrics created = new OperationMetrics(name);
+                metrics = byName.putIfAbsent(name, created);
+                if (metrics == null) {
+                    metrics = created;
+                }
+            }
+            return metrics;
+        }
+
+        List<OperationMetrics> sorted() {
+            Collection<OperationMetrics> values = byName.values();
+            List<OperationMetrics> list = new ArrayList<>(values);
+            Collections.sort(list, (a, b) -> a.getName().compareTo(b.getName()));
+            return list;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de una operación: un endpoint REST o un método de la lógica o la
+ * persistencia.
+ *
+ * @author ISIS2603
+ */
+public final class OperationMetrics {
+
+    private final String name;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final AtomicLong rows = new AtomicLong();
+
+    /**
+     * @param name nombre de la operación, por ejemplo
+     * <code>EmpresaPersistence.findPage</code>.
+     */
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Registra una ejecución de la operación.
+     *
+     * @param nanos duración en nanosegundos.
+     * @param rows número de filas (empresas) que devolvió la operación.
+     * @param error true si la operación terminó con error.
+     */
+    public void record(long nanos, int rows, boolean error) {
+        latency.record(nanos);
+        if (rows > 0) {
+            this.rows.addAndGet(rows);
+        }
+        if (error) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return nombre de la operación.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return histograma de latencias de la operación.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return número de ejecuciones que terminaron con error.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return número total de filas devueltas.
+     */
+    public long getRows() {
+        return rows.get();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.metrics;
+
+import java.util.Collection;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Interceptor que registra en {@link MetricsRegistry} la duración de los
+ * métodos anotados con {@link Timed}.
+ *
+ * Si el método devuelve una colección, cada elemento cuenta como una fila; si
+ * devuelve otro objeto, cuenta como una. Un método que lanza una excepción
+ * cuenta como error.
+ *
+ * @author ISIS2603
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class TimedInterceptor {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    /**
+     * Mide la invocación del método.
+     *
+     * @param context invocación interceptada.
+     * @return el resultado del método.
+     * @throws Exception la excepción que lance el método.
+     */
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        OperationMetrics metrics = registry.method(context.getMethod());
+        long start = System.nanoTime();
+        boolean error = true;
+        Object result = null;
+        try {
+            result = context.proceed();
+            error = false;
+            return result;
+        } finally {
+            metrics.record(System.nanoTime() - start, rowsOf(result), error);
+        }
+    }
+
+    private static int rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        return result instanceof Collection ? ((Collection<?>) result).size() : 1;
+    }
+}
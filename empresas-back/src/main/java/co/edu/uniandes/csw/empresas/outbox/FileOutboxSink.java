@@ -0,0 +1,106 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Entrega los cambios agregándolos a un archivo local, un JSON por línea
+ * (NDJSON), para que otros procesos de la máquina lo lean.
+ *
+ * Cada lote se escribe con una sola escritura y se fuerza a disco antes de
+ * retornar. Si el proceso falla a mitad de un lote, el lote se vuelve a
+ * escribir completo y el archivo puede tener una línea incompleta o cambios
+ * repetidos: quien lo lee debe ignorar las líneas que no son JSON y los ids ya
+ * vistos.
+ *
+ * El archivo se configura con la propiedad del sistema
+ * <code>empresas.outbox.file</code> (por defecto empresas-outbox.ndjson en el
+ * directorio temporal).
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class FileOutboxSink implements OutboxSink {
+
+    static final String NAME = "file";
+
+    private final Path file;
+
+    /**
+     * Constructor con el archivo de la propiedad del sistema.
+     */
+    public FileOutboxSink() {
+        this(Paths.get(System.getProperty("empresas.outbox.file",
+                Paths.get(System.getProperty("java.io.tmpdir"), "empresas-outbox.ndjson").toString())));
+    }
+
+    /**
+     * @param file archivo al que se agregan los cambios.
+     */
+    public FileOutboxSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public synchronized void send(List<OutboxEntity> batch) throws IOException {
+        StringBuilder sb = new StringBuilder(batch.size() * 256);
+        for (OutboxEntity entry : batch) {
+            sb.append(OutboxMessages.lineOf(entry)).append('\n');
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(sb.toString());
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * @return el archivo al que se agregan los cambios.
+     */
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Formato JSON de los cambios del outbox.
+ *
+ * @author ISIS2603
+ */
+final class OutboxMessages {
+
+    private OutboxMessages() {
+    }
+
+    /**
+     * @param empresa la empresa.
+     * @return la empresa en JSON, con los nombres de atributos de EmpresaDTO.
+     */
+    static String payloadOf(EmpresaEntity empresa) {
+        JsonObjectBuilder json = Json.createObjectBuilder().add("id", empresa.getId());
+        add(json, "empresa", empresa.getEmpresa());
+        add(json, "ciudad", empresa.getCiudad());
+        add(json, "image", empresa.getImage());
+        add(json, "aniocreacion", empresa.getAniocreacion() == null ? null : empresa.getAniocreacion().toString());
+        if (empresa.getVersion() != null) {
+            json.add("version", empresa.getVersion());
+        }
+        if (empresa.getLastModified() != null) {
+            json.add("lastModified", empresa.getLastModified().getTime());
+        }
+        return json.build().toString();
+    }
+
+    private static void add(JsonObjectBuilder json, String name, String value) {
+        if (value != null) {
+            json.add(name, value);
+        }
+    }
+
+    /**
+     * @param entry un cambio del outbox.
+     * @return el cambio como una línea de JSON, sin el salto de línea: el id
+     * del cambio, su tipo, el id de la empresa, la fecha y la empresa.
+     */
+    static String lineOf(OutboxEntity entry) {
+        StringBuilder sb = new StringBuilder(entry.getPayload() == null ? 128 : entry.getPayload().length() + 128);
+        sb.append("{\"id\":").append(entry.getId())
+                .append(",\"type\":\"").append(entry.getType())
+                .append("\",\"empresaId\":").append(entry.getEmpresaId());
+        if (entry.getVersion() != null) {
+            sb.append(",\"version\":").append(entry.getVersion());
+        }
+        sb.append(",\"createdAt\":").append(entry.getCreatedAt().getTime());
+        if (entry.getPayload() != null) {
+            // El payload ya es JSON válido: se copia sin volver a interpretarlo.
+            sb.append(",\"empresa\":").append(entry.getPayload());
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import co.edu.uniandes.csw.empresas.persistence.OutboxPersistence;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+/**
+ * Entrega en segundo plano los cambios del outbox a un {@link OutboxSink}.
+ *
+ * Un timer no persistente revisa la tabla cada
+ * <code>empresas.outbox.intervalMillis</code> milisegundos (500 por defecto).
+ * En cada revisión se leen lotes de <code>empresas.outbox.batchSize</code>
+ * cambios (200 por defecto), cada lote se entrega al destino y luego se borra
+ * de la tabla con una sola sentencia. Si la entrega falla el lote no se borra
+ * y se vuelve a intentar en la siguiente revisión; si el servidor se cae
+ * entre la entrega y el borrado, el lote se entrega otra vez. La entrega es
+ * entonces al menos una vez.
+ *
+ * Los lotes se leen en el orden de los ids, pero ese no es el orden en que se
+ * hicieron los cambios: los ids se reservan por bloques y las transacciones
+ * no terminan en el orden de sus ids, así que un cambio con id menor puede
+ * aparecer en la tabla después de que ya se entregó uno con id mayor. Quien
+ * consume los cambios debe ordenarlos por empresa con la versión que trae
+ * cada mensaje (ver {@link OutboxSink}).
+ *
+ * El destino se elige con <code>empresas.outbox.sink</code>:
+ * <code>file</code> (por defecto) o <code>queue</code>.
+ *
+ * @author ISIS2603
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class OutboxRelay {
+
+    private static final Logger LOGGER = Logger.getLogger(OutboxRelay.class.getName());
+
+    private static final long INTERVAL_MILLIS = Long.getLong("empresas.outbox.intervalMillis", 500);
+
+    private static final int BATCH_SIZE = Integer.getInteger("empresas.outbox.batchSize", 200);
+
+    /**
+     * Lotes que se entregan como máximo en una revisión, para no ocupar el
+     * hilo del timer indefinidamente si los cambios llegan más rápido de lo
+     * que se entregan.
+     */
+    private static final int MAX_BATCHES_PER_TICK = Integer.getInteger("empresas.outbox.maxBatchesPerTick", 50);
+
+    @Resource
+    private TimerService timerService;
+
+    @Inject
+    private OutboxPersistence persistence;
+
+    @Inject
+    @Any
+    private Instance<OutboxSink> sinks;
+
+    private OutboxSink sink;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Elige el destino y programa el timer.
+     */
+    @PostConstruct
+    public void start() {
+        String name = System.getProperty("empresas.outbox.sink", FileOutboxSink.NAME);
+        for (OutboxSink candidate : sinks) {
+            if (candidate.getName().equals(name)) {
+                sink = candidate;
+            }
+        }
+        if (sink == null) {
+            LOGGER.log(Level.SEVERE, "No existe el destino de outbox \"{0}\"; los cambios se quedan en la tabla", name);
+            return;
+        }
+        timerService.createIntervalTimer(INTERVAL_MILLIS, INTERVAL_MILLIS, new TimerConfig(null, false));
+        LOGGER.log(Level.INFO, "Entregando el outbox a \"{0}\" cada {1} ms", new Object[]{name, INTERVAL_MILLIS});
+    }
+
+    /**
+     * Revisión periódica. Si la anterior todavía no terminó, esta no hace
+     * nada.
+     */
+    @Timeout
+    public void onTimeout() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Entrega los cambios pendientes, lote por lote, hasta que la tabla quede
+     * vacía, falle una entrega o se alcance el máximo de lotes.
+     *
+     * @return número de cambios entregados.
+     */
+    public int drain() {
+        int total = 0;
+        if (sink == null) {
+            return total;
+        }
+        for (int i = 0; i < MAX_BATCHES_PER_TICK; i++) {
+            List<OutboxEntity> batch = persistence.findBatch(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                sink.send(batch);
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                LOGGER.log(Level.WARNING, "No se pudo entregar un lote de " + batch.size() + " cambios del outbox", e);
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (OutboxEntity entry : batch) {
+                ids.add(entry.getId());
+            }
+            persistence.delete(ids);
+            delivered.addAndGet(batch.size());
+            total += batch.size();
+            if (batch.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return número de cambios entregados desde que se desplegó la
+     * aplicación; incluye los entregados más de una vez.
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return número de lotes cuya entrega falló.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return número de cambios pendientes en la tabla.
+     */
+    public long getPending() {
+        return persistence.count();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destino al que {@link OutboxRelay} entrega los cambios de las empresas.
+ *
+ * Las implementaciones son beans CDI; el relay usa la que tenga el nombre de
+ * la propiedad del sistema <code>empresas.outbox.sink</code>.
+ *
+ * La entrega es al menos una vez: si {@link #send(List)} lanza una excepción
+ * o el relay falla antes de borrar el lote, el mismo lote se vuelve a enviar.
+ * Quien consume los cambios debe descartar los repetidos por
+ * {@link OutboxEntity#getId()}.
+ *
+ * Los cambios no llegan en el orden en que se hicieron. El orden entre los
+ * cambios de una misma empresa lo da {@link OutboxEntity#getVersion()}, que
+ * viaja en cada mensaje: quien consume debe descartar un cambio cuya versión
+ * no sea mayor que la última que aplicó de esa empresa. Un borrado lleva la
+ * versión de la última actualización, así que se aplica aunque la versión sea
+ * igual. Entre empresas distintas no hay orden.
+ *
+ * @author ISIS2603
+ */
+public interface OutboxSink {
+
+    /**
+     * @return el nombre con el que se elige este destino.
+     */
+    String getName();
+
+    /**
+     * Entrega un lote de cambios. Solo debe retornar cuando el lote esté
+     * guardado en el destino.
+     *
+     * @param batch cambios ordenados por id, que no es el orden en que se
+     * hicieron.
+     * @throws IOException si no se pudo entregar el lote; se vuelve a intentar.
+     */
+    void send(List<OutboxEntity> batch) throws IOException;
+}
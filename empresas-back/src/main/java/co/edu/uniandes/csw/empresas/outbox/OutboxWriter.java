@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import co.edu.uniandes.csw.empresas.persistence.OutboxPersistence;
+import java.util.Date;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Escribe cada {@link EmpresaEvent} en la tabla outbox.
+ *
+ * El observador es síncrono: se ejecuta dentro de la transacción JTA de
+ * {@link co.edu.uniandes.csw.empresas.ejb.EmpresaLogic} que hizo el cambio,
+ * así que la fila del outbox se guarda o se descarta junto con el cambio de la
+ * empresa. Si no se puede escribir, la transacción completa falla.
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class OutboxWriter {
+
+    @Inject
+    private OutboxPersistence persistence;
+
+    /**
+     * Guarda el cambio en el outbox.
+     *
+     * @param event el cambio, dentro de su transacción.
+     */
+    public void onChange(@Observes EmpresaEvent event) {
+        OutboxEntity entry = new OutboxEntity();
+        entry.setEmpresaId(event.getEmpresaId());
+        entry.setType(event.getType().name());
+        entry.setVersion(event.getEmpresa().getVersion());
+        entry.setPayload(OutboxMessages.payloadOf(event.getEmpresa()));
+        entry.setCreatedAt(new Date());
+        persistence.create(entry);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.outbox;
+
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Destino de prueba que deja los cambios en una cola en memoria, en lugar de
+ * una cola de mensajes real. Los consumidores del mismo proceso los sacan con
+ * {@link #poll(long, TimeUnit)}.
+ *
+ * La cola tiene tamaño fijo (<code>empresas.outbox.queueSize</code>, 10000 por
+ * defecto). Si un lote no cabe no se entrega ninguna parte y los cambios se
+ * quedan en el outbox hasta que los consumidores saquen otros.
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class QueueOutboxSink implements OutboxSink {
+
+    static final String NAME = "queue";
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(Integer.getInteger("empresas.outbox.queueSize", 10000));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public synchronized void send(List<OutboxEntity> batch) throws IOException {
+        if (queue.remainingCapacity() < batch.size()) {
+            throw new IOException("La cola del outbox no tiene espacio para " + batch.size() + " cambios.");
+        }
+        for (OutboxEntity entry : batch) {
+            queue.add(OutboxMessages.lineOf(entry));
+        }
+    }
+
+    /**
+     * Saca el cambio más viejo de la cola.
+     *
+     * @param timeout tiempo máximo de espera.
+     * @param unit unidad de timeout.
+     * @return el cambio como una línea de JSON, o null si no llegó ninguno.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * @return número de cambios en la cola.
+     */
+    public int size() {
+        return queue.size();
+    }
+}
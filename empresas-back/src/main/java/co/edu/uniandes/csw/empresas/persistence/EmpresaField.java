@@ -0,0 +1,95 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Atributos de una empresa que se pueden pedir por separado en una
+ * proyección.
+ *
+ * @author ISIS2603
+ */
+public enum EmpresaField {
+
+    ID("id", (e, v) -> e.setId((Long) v)),
+    EMPRESA("empresa", (e, v) -> e.setEmpresa((String) v)),
+    CIUDAD("ciudad", (e, v) -> e.setCiudad((String) v)),
+    IMAGE("image", (e, v) -> e.setImage((String) v)),
+    ANIOCREACION("aniocreacion", (e, v) -> e.setAniocreacion((LocalDate) v)),
+    VERSION("version", (e, v) -> e.setVersion((Long) v)),
+    LASTMODIFIED("lastModified", (e, v) -> e.setLastModified((Date) v));
+
+    /**
+     * Atributos que siempre se consultan, porque de ellos dependen el cursor de
+     * la página siguiente, el ETag y el Last-Modified.
+     */
+    static final Set<EmpresaField> REQUIRED = EnumSet.of(ID, VERSION, LASTMODIFIED);
+
+    private final String attribute;
+
+    private final BiConsumer<EmpresaEntity, Object> setter;
+
+    EmpresaField(String attribute, BiConsumer<EmpresaEntity, Object> setter) {
+        this.attribute = attribute;
+        this.setter = setter;
+    }
+
+    /**
+     * @return el nombre del atributo en EmpresaEntity y en el JSON.
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Busca un atributo por su nombre.
+     *
+     * @param attribute nombre del atributo, como en el JSON.
+     * @return el atributo, o null si no existe ninguno con ese nombre.
+     */
+    public static EmpresaField of(String attribute) {
+        for (EmpresaField field : values()) {
+            if (field.attribute.equals(attribute)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asigna el valor del atributo en una entidad.
+     *
+     * @param entity entidad que recibe el valor.
+     * @param value valor leído de la base de datos.
+     */
+    void set(EmpresaEntity entity, Object value) {
+        setter.accept(entity, value);
+    }
+}
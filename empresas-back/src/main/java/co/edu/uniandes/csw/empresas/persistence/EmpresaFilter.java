@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+/**
+ * Criterios para filtrar las empresas que se consultan. Los criterios que son
+ * null no se aplican.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaFilter {
+
+    /**
+     * Primer año que se puede usar en el filtro. Los años se comparan con
+     * fechas de la base de datos, que van del año 1 al 9999.
+     */
+    public static final int MIN_ANIO = 1;
+
+    /**
+     * Último año que se puede usar en el filtro.
+     */
+    public static final int MAX_ANIO = 9999;
+
+    private String ciudad;
+    private String empresaPrefix;
+    private Integer anioDesde;
+    private Integer anioHasta;
+
+    /**
+     * Constructor vacio: un filtro sin criterios.
+     */
+    public EmpresaFilter() {
+    }
+
+    /**
+     * Constructor con todos los criterios.
+     *
+     * @param ciudad ciudad exacta de las empresas, o null.
+     * @param empresaPrefix prefijo del nombre de las empresas, o null.
+     * @param anioDesde primer año de creación incluido, o null.
+     * @param anioHasta último año de creación incluido, o null.
+     */
+    public EmpresaFilter(String ciudad, String empresaPrefix, Integer anioDesde, Integer anioHasta) {
+        this.ciudad = ciudad;
+        this.empresaPrefix = empresaPrefix;
+        this.anioDesde = anioDesde;
+        this.anioHasta = anioHasta;
+    }
+
+    /**
+     * @return true si el filtro no tiene ningún criterio.
+     */
+    public boolean isEmpty() {
+        return ciudad == null && empresaPrefix == null && anioDesde == null && anioHasta == null;
+    }
+
+    /**
+     * @return the ciudad
+     */
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    /**
+     * @param ciudad the ciudad to set
+     */
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+
+    /**
+     * @return the empresaPrefix
+     */
+    public String getEmpresaPrefix() {
+        return empresaPrefix;
+    }
+
+    /**
+     * @param empresaPrefix the empresaPrefix to set
+     */
+    public void setEmpresaPrefix(String empresaPrefix) {
+        this.empresaPrefix = empresaPrefix;
+    }
+
+    /**
+     * @return the anioDesde
+     */
+    public Integer getAnioDesde() {
+        return anioDesde;
+    }
+
+    /**
+     * @param anioDesde the anioDesde to set
+     */
+    public void setAnioDesde(Integer anioDesde) {
+        this.anioDesde = anioDesde;
+    }
+
+    /**
+     * @return the anioHasta
+     */
+    public Integer getAnioHasta() {
+        return anioHasta;
+    }
+
+    /**
+     * @param anioHasta the anioHasta to set
+     */
+    public void setAnioHasta(Integer anioHasta) {
+        this.anioHasta = anioHasta;
+    }
+
+    @Override
+    public String toString() {
+        return "EmpresaFilter[ciudad=" + ciudad + ", empresaPrefix=" + empresaPrefix
+                + ", anioDesde=" + anioDesde + ", anioHasta=" + anioHasta + "]";
+    }
+}
@@ -0,0 +1,408 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Almacén de imágenes direccionado por contenido.
+ *
+ * Cada imagen se guarda una sola vez en un archivo cuyo nombre es el SHA-256
+ * de sus bytes, de modo que el contenido de un archivo nunca cambia. En la
+ * tabla de empresas solo se guarda la referencia <code>sha256:&lt;hex&gt;</code>
+ * que devuelve {@link #store(byte[])}.
+ *
+ * El directorio se lee de la propiedad del sistema
+ * <code>empresas.images.dir</code>. Por defecto es
+ * <code>empresas-images</code> dentro del directorio del dominio del
+ * servidor (<code>com.sun.aas.instanceRoot</code>), que a diferencia de
+ * <code>java.io.tmpdir</code> no se borra al reiniciar la máquina. Fuera del
+ * servidor la propiedad es obligatoria.
+ *
+ * Las imágenes se escriben antes de que termine la transacción que guarda la
+ * empresa. Si una imagen nueva se guarda dentro de una transacción y esa
+ * transacción se revierte, el archivo se borra al terminar, salvo que otra
+ * transacción confirmada o una escritura fuera de transacción también lo haya
+ * usado. Las imágenes que se guardan fuera de una transacción, como las de la
+ * importación, no se borran si después falla la escritura de la empresa;
+ * esos archivos no tienen referencias en la columna image y se pueden borrar
+ * comparando el directorio con esa columna.
+ *
+ * @author ISIS2603
+ */
+@ApplicationScoped
+public class EmpresaImageStore {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaImageStore.class.getName());
+
+    /**
+     * Prefijo de las referencias a imágenes del almacén.
+     */
+    public static final String REFERENCE_PREFIX = "sha256:";
+
+    /**
+     * Prefijo de las imágenes que llegan embebidas como data URI.
+     */
+    private static final String DATA_URI_PREFIX = "data:";
+
+    private static final int HASH_LENGTH = 64;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Propiedad del sistema con el directorio del dominio en Payara y
+     * GlassFish.
+     */
+    private static final String INSTANCE_ROOT = "com.sun.aas.instanceRoot";
+
+    private final Path root;
+
+    /**
+     * Imágenes escritas por transacciones que todavía no terminan. Solo se
+     * modifica con {@link ConcurrentMap#compute}, así que escribir, usar y
+     * borrar el archivo de un mismo hash nunca se cruzan.
+     */
+    private final ConcurrentMap<String, PendingImage> pending = new ConcurrentHashMap<>();
+
+    @Resource
+    private TransactionSynchronizationRegistry transactions;
+
+    /**
+     * Constructor con la configuración de las propiedades del sistema.
+     *
+     * @throws IllegalStateException si no está definida
+     * <code>empresas.images.dir</code> ni el directorio del dominio.
+     */
+    public EmpresaImageStore() {
+        this(defaultRoot());
+    }
+
+    /**
+     * Constructor con un directorio explícito.
+     *
+     * @param root directorio donde se guardan las imágenes.
+     */
+    public EmpresaImageStore(Path root) {
+        this.root = root;
+    }
+
+    private static Path defaultRoot() {
+        String dir = System.getProperty("empresas.images.dir");
+        if (dir != null) {
+            return Paths.get(dir);
+        }
+        String instanceRoot = System.getProperty(INSTANCE_ROOT);
+        if (instanceRoot == null) {
+            throw new IllegalStateException("Falta la propiedad del sistema empresas.images.dir con el directorio de las imágenes");
+        }
+        return Paths.get(instanceRoot, "empresas-images");
+    }
+
+    /**
+     * Guarda una imagen si no estaba guardada. Si se guarda dentro de una
+     * transacción activa y esa transacción se revierte, el archivo se borra.
+     *
+     * @param data bytes de la imagen.
+     * @return la referencia a la imagen, de la forma
+     * <code>sha256:&lt;hex&gt;</code>.
+     */
+    public String store(byte[] data) {
+        String hash = sha256(data);
+        Path path = pathOf(hash);
+        boolean transactional = transactions != null && transactions.getTransactionStatus() == Status.STATUS_ACTIVE;
+        PendingImage[] joined = new PendingImage[1];
+        pending.compute(hash, (h, image) -> {
+            boolean written = writeIfAbsent(hash, path, data);
+            if (!transactional) {
+                // Una escritura fuera de transacción ya no se puede revertir.
+                if (image != null) {
+                    image.kept = true;
+                }
+                return image;
+            }
+            if (image == null && !written) {
+                return null;
+            }
+            PendingImage current = image == null ? new PendingImage() : image;
+            current.references++;
+            joined[0] = current;
+            return current;
+        });
+        if (joined[0] != null) {
+            try {
+                transactions.registerInterposedSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                        // No hay nada que hacer antes del commit.
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        release(hash, status);
+                    }
+                });
+            } catch (RuntimeException e) {
+                release(hash, Status.STATUS_ROLLEDBACK);
+                throw e;
+            }
+        }
+        return REFERENCE_PREFIX + hash;
+    }
+
+    /**
+     * Escribe el archivo de una imagen si no existe.
+     *
+     * @return true si se escribió.
+     */
+    private static boolean writeIfAbsent(String hash, Path path, byte[] data) {
+        if (Files.exists(path)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            // Se escribe en un archivo temporal y se mueve, para que nadie lea una imagen a medio escribir.
+            Path tmp = Files.createTempFile(path.getParent(), hash, ".tmp");
+            try {
+                Files.write(tmp, data);
+                moveIntoPlace(tmp, path);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen " + hash, e);
+        }
+        LOGGER.log(Level.FINE, "Imagen {0} guardada ({1} bytes)", new Object[]{hash, data.length});
+        return true;
+    }
+
+    /**
+     * Termina el uso de una imagen pendiente por una transacción. Cuando la
+     * última transacción que la usaba termina, el archivo se borra si todas se
+     * revirtieron.
+     *
+     * @param status estado con el que terminó la transacción.
+     */
+    private void release(String hash, int status) {
+        pending.compute(hash, (h, image) -> {
+            if (status != Status.STATUS_ROLLEDBACK) {
+                image.kept = true;
+            }
+            if (--image.references > 0) {
+                return image;
+            }
+            if (!image.kept) {
+                try {
+                    Files.deleteIfExists(pathOf(hash));
+                    LOGGER.log(Level.FINE, "Imagen {0} borrada porque la transacción se revirtió", hash);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "No se pudo borrar la imagen " + hash + " de una transacción revertida", e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @param image imagen recibida en una empresa.
+     * @return true si la imagen viene embebida como data URI.
+     */
+    public static boolean isDataUri(String image) {
+        return image != null && image.regionMatches(true, 0, DATA_URI_PREFIX, 0, DATA_URI_PREFIX.length());
+    }
+
+    /**
+     * Decodifica una imagen embebida como data URI en base64 y la guarda en el
+     * almacén.
+     *
+     * @param dataUri la imagen, de la forma
+     * <code>data:&lt;tipo&gt;;base64,&lt;datos&gt;</code>.
+     * @return la referencia a la imagen, como en {@link #store(byte[])}.
+     * @throws IllegalArgumentException si el data URI no está en base64 o el
+     * base64 no es válido.
+     */
+    public String storeDataUri(String dataUri) {
+        int comma = dataUri.indexOf(',');
+        if (comma < 0 || !dataUri.substring(0, comma).endsWith(";base64")) {
+            throw new IllegalArgumentException("La imagen de la empresa debe ser un data URI en base64");
+        }
+        byte[] data;
+        try {
+            data = Base64.getMimeDecoder().decode(dataUri.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("La imagen de la empresa no es un base64 válido", e);
+        }
+        return store(data);
+    }
+
+    /**
+     * Busca el archivo de una imagen.
+     *
+     * @param hash SHA-256 de la imagen en hexadecimal.
+     * @return el archivo de la imagen, o null si el hash no es válido o la
+     * imagen no está en el almacén.
+     */
+    public Path find(String hash) {
+        if (!isHash(hash)) {
+            return null;
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Deduce el tipo de una imagen del almacén a partir de sus primeros bytes.
+     *
+     * @param path archivo devuelto por {@link #find(String)}.
+     * @return el tipo MIME de la imagen, o
+     * <code>application/octet-stream</code> si no se reconoce.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public static String contentType(Path path) throws IOException {
+        byte[] head = new byte[12];
+        int n = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while (n < head.length && (read = in.read(head, n, head.length - n)) > 0) {
+                n += read;
+            }
+        }
+        if (n >= 8 && (head[0] & 0xff) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "image/png";
+        }
+        if (n >= 3 && (head[0] & 0xff) == 0xff && (head[1] & 0xff) == 0xd8 && (head[2] & 0xff) == 0xff) {
+            return "image/jpeg";
+        }
+        if (n >= 4 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return "image/gif";
+        }
+        if (n >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Obtiene el hash de una referencia a una imagen del almacén.
+     *
+     * @param image valor del atributo image de una empresa.
+     * @return el hash de la imagen, o null si image no es una referencia al
+     * almacén.
+     */
+    public static String hashOf(String image) {
+        if (image == null || !image.startsWith(REFERENCE_PREFIX)) {
+            return null;
+        }
+        String hash = image.substring(REFERENCE_PREFIX.length());
+        return isHash(hash) ? hash : null;
+    }
+
+    /**
+     * @param hash texto a validar.
+     * @return true si el texto es un SHA-256 en hexadecimal en minúsculas.
+     */
+    public static boolean isHash(String hash) {
+        if (hash == null || hash.length() != HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Las imágenes se reparten en subdirectorios por los dos primeros
+     * caracteres del hash para no tener un único directorio enorme.
+     */
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static void moveIntoPlace(Path tmp, Path path) throws IOException {
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, path);
+            } catch (FileAlreadyExistsException ignored) {
+                // Otra petición guardó la misma imagen; el contenido es idéntico.
+            }
+        }
+    }
+
+    /**
+     * Imagen nueva que usan transacciones que no han terminado.
+     */
+    private static final class PendingImage {
+
+        /**
+         * Número de transacciones que la usan y no han terminado.
+         */
+        private int references;
+
+        /**
+         * true si alguna transacción que la usaba no se revirtió o se usó
+         * fuera de una transacción: entonces el archivo no se borra.
+         */
+        private boolean kept;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible", e);
+        }
+    }
+}
@@ -23,13 +23,28 @@ SOFTWARE.
  */
 package co.edu.uniandes.csw.empresas.persistence;
 
+import co.edu.uniandes.csw.empresas.cache.EmpresaCache;
 import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.limits.LatencySampled;
+import co.edu.uniandes.csw.empresas.limits.LatencySampledInterceptor;
+import co.edu.uniandes.csw.empresas.metrics.Timed;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 /**
@@ -39,6 +54,8 @@ import javax.persistence.TypedQuery;
  * @author ISIS2603
  */
 @Stateless
+@Timed
+@LatencySampled
 public class EmpresaPersistence {
 
     private static final Logger LOGGER = Logger.getLogger(EmpresaPersistence.class.getName());
@@ -46,6 +63,9 @@ public class EmpresaPersistence {
     @PersistenceContext(unitName = "DBParcialPU")
     protected EntityManager em;
 
+    @Inject
+    protected EmpresaCache cache;
+
     /**
      * Crea un autor en la base de datos
      *
@@ -53,15 +73,45 @@ public class EmpresaPersistence {
      * @return devuelve la entidad creada con un id dado por la base de datos.
      */
     public EmpresaEntity create(EmpresaEntity empresaEntity) {
-        LOGGER.log(Level.INFO, "Creando un autor nuevo");
+        LOGGER.log(Level.FINE, "Creando un autor nuevo");
         /* Note que hacemos uso de un método propio de EntityManager para persistir la author en la base de datos.
         Es similar a "INSERT INTO table_name (column1, column2, column3, ...) VALUES (value1, value2, value3, ...);" en SQL.
          */
         em.persist(empresaEntity);
-        LOGGER.log(Level.INFO, "Autor creado");
+        cache.invalidate(empresaEntity.getId());
+        LOGGER.log(Level.FINE, "Autor creado");
         return empresaEntity;
     }
 
+    /**
+     * Crea varias empresas en la base de datos dentro de la transacción actual.
+     *
+     * Cada chunkSize empresas se hace flush() para enviar los INSERT en lote y
+     * clear() para que el contexto de persistencia no crezca con el número de
+     * empresas.
+     *
+     * @param empresas empresas que se crearán en la base de datos.
+     * @param chunkSize número de empresas que se envían a la base de datos en
+     * cada flush.
+     * @return las mismas empresas, ya con el id asignado.
+     */
+    public List<EmpresaEntity> createAll(List<EmpresaEntity> empresas, int chunkSize) {
+        LOGGER.log(Level.FINE, "Creando {0} empresas", empresas.size());
+        int pending = 0;
+        for (EmpresaEntity empresaEntity : empresas) {
+            em.persist(empresaEntity);
+            if (++pending == chunkSize) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+        em.clear();
+        LOGGER.log(Level.FINE, "Empresas creadas");
+        return empresas;
+    }
+
     /**
      * Devuelve todas las authores de la base de datos.
      *
@@ -70,7 +120,7 @@ public class EmpresaPersistence {
      * EmpresaEntity;" - "SELECT * FROM table_name" en SQL.
      */
     public List<EmpresaEntity> findAll() {
-        LOGGER.log(Level.INFO, "Consultando todos los autores");
+        LOGGER.log(Level.FINE, "Consultando todos los autores");
         // Se crea un query para buscar todas las authores en la base de datos.
         TypedQuery query = em.createQuery("select u from EmpresaEntity u", EmpresaEntity.class);
         // Note que en el query se hace uso del método getResultList() que obtiene una lista de authores.
@@ -78,18 +128,312 @@ public class EmpresaPersistence {
     }
 
     /**
-     * Busca si hay alguna author con el id que se envía de argumento
+     * Devuelve una página de empresas ordenada por id. La página empieza
+     * después del id recibido (paginación por llave), así que la consulta usa
+     * la llave primaria y no necesita recorrer las filas de páginas anteriores.
+     *
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * empezar desde el principio.
+     * @param limit número máximo de empresas que se devuelven.
+     * @return una lista con a lo sumo limit empresas cuyo id es mayor que
+     * afterId, ordenadas por id.
+     */
+    public List<EmpresaEntity> findPage(Long afterId, int limit) {
+        return findPage(null, afterId, limit);
+    }
+
+    /**
+     * Devuelve una página de las empresas que cumplen el filtro, ordenada por
+     * id. Cada criterio del filtro se traduce en una condición con parámetros
+     * sobre una columna indexada (ver {@link EmpresaEntity}).
+     *
+     * @param filter criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * empezar desde el principio.
+     * @param limit número máximo de empresas que se devuelven.
+     * @return una lista con a lo sumo limit empresas que cumplen el filtro y
+     * cuyo id es mayor que afterId, ordenadas por id.
+     */
+    public List<EmpresaEntity> findPage(EmpresaFilter filter, Long afterId, int limit) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Consultando {0} empresas después del id={1} con {2}", new Object[]{limit, afterId, filter});
+        }
+        return pageQuery("select u", EmpresaEntity.class, filter, afterId)
+                // setMaxResults se traduce en un límite en el SQL, así que solo se traen las filas de la página.
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Devuelve una página de empresas consultando solo algunos de sus
+     * atributos. Recibe los mismos argumentos que
+     * {@link #findPage(EmpresaFilter, Long, int)} y devuelve las mismas
+     * empresas en el mismo orden.
+     *
+     * Además de los atributos pedidos siempre se consultan id, version y
+     * lastModified. Las entidades devueltas no están administradas y los
+     * demás atributos quedan en null.
+     *
+     * @param filter criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * empezar desde el principio.
+     * @param limit número máximo de empresas que se devuelven.
+     * @param fields atributos que se consultan.
+     * @return una lista con a lo sumo limit empresas con solo esos atributos.
+     */
+    public List<EmpresaEntity> findPage(EmpresaFilter filter, Long afterId, int limit, Set<EmpresaField> fields) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Consultando {0} de {1} empresas después del id={2} con {3}", new Object[]{fields, limit, afterId, filter});
+        }
+        EmpresaField[] columns = columnsOf(fields);
+        List<Object[]> rows = pageQuery(selectOf(columns), Object[].class, filter, afterId)
+                .setMaxResults(limit)
+                .getResultList();
+        List<EmpresaEntity> empresas = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            empresas.add(toEntity(columns, row));
+        }
+        return empresas;
+    }
+
+    /**
+     * Devuelve la versión de las empresas de una página, sin cargar las
+     * entidades. Recibe los mismos argumentos que
+     * {@link #findPage(EmpresaFilter, Long, int)} y devuelve las mismas
+     * empresas en el mismo orden.
+     *
+     * @param filter criterios que deben cumplir las empresas, o null para no
+     * filtrar.
+     * @param afterId id de la última empresa de la página anterior, o null para
+     * empezar desde el principio.
+     * @param limit número máximo de empresas que se devuelven.
+     * @return la versión de cada empresa de la página.
+     */
+    public List<EmpresaVersion> findPageVersions(EmpresaFilter filter, Long afterId, int limit) {
+        LOGGER.log(Level.FINE, "Consultando las versiones de una página de empresas después del id={0}", afterId);
+        return pageQuery("select new co.edu.uniandes.csw.empresas.persistence.EmpresaVersion(u.id, u.version, u.lastModified)",
+                EmpresaVersion.class, filter, afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Devuelve la versión de una empresa, sin cargar la entidad. La consulta
+     * siempre va a la base de datos para que la versión sea la vigente.
+     *
+     * @param authorsId id de la empresa.
+     * @return la versión de la empresa, o null si no existe.
+     */
+    public EmpresaVersion findVersion(Long authorsId) {
+        LOGGER.log(Level.FINE, "Consultando la versión de la empresa con id={0}", authorsId);
+        List<EmpresaVersion> versions = em.createQuery("select new co.edu.uniandes.csw.empresas.persistence.EmpresaVersion(u.id, u.version, u.lastModified)"
+                + " from EmpresaEntity u where u.id = :id", EmpresaVersion.class)
+                .setParameter("id", authorsId)
+                .getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    /**
+     * Construye la consulta de una página de empresas ordenada por id.
+     *
+     * Para el prefijo del nombre se usa un rango (empresa &gt;= prefijo y
+     * empresa &lt; siguiente prefijo) en lugar de LIKE, que Derby resuelve
+     * siempre como una búsqueda en el índice.
+     *
+     * @param select cláusula select de la consulta sobre el alias u.
+     * @param type tipo del resultado.
+     * @param filter criterios que deben cumplir las empresas, o null.
+     * @param afterId id de la última empresa de la página anterior, o null.
+     * @return la consulta con los parámetros asignados.
+     */
+    private <T> TypedQuery<T> pageQuery(String select, Class<T> type, EmpresaFilter filter, Long afterId) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        List<String> conditions = new ArrayList<>();
+        if (afterId != null) {
+            conditions.add("u.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        if (filter != null) {
+            if (filter.getCiudad() != null) {
+                conditions.add("u.ciudad = :ciudad");
+                parameters.put("ciudad", filter.getCiudad());
+            }
+            String prefix = filter.getEmpresaPrefix();
+            if (prefix != null && !prefix.isEmpty()) {
+                conditions.add("u.empresa >= :empresaDesde");
+                parameters.put("empresaDesde", prefix);
+                char last = prefix.charAt(prefix.length() - 1);
+                if (last != Character.MAX_VALUE) {
+                    conditions.add("u.empresa < :empresaHasta");
+                    parameters.put("empresaHasta", prefix.substring(0, prefix.length() - 1) + (char) (last + 1));
+                }
+            }
+            if (filter.getAnioDesde() != null) {
+                conditions.add("u.aniocreacion >= :anioDesde");
+                parameters.put("anioDesde", firstDayOf(filter.getAnioDesde()));
+            }
+            if (filter.getAnioHasta() != null) {
+                conditions.add("u.aniocreacion <= :anioHasta");
+                parameters.put("anioHasta", lastDayOf(filter.getAnioHasta()));
+            }
+        }
+        StringBuilder jpql = new StringBuilder(select).append(" from EmpresaEntity u");
+        for (int i = 0; i < conditions.size(); i++) {
+            jpql.append(i == 0 ? " where " : " and ").append(conditions.get(i));
+        }
+        jpql.append(" order by u.id");
+        TypedQuery<T> query = em.createQuery(jpql.toString(), type);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        return query;
+    }
+
+    /**
+     * @param year un año.
+     * @return el 1 de enero de ese año.
+     */
+    private static LocalDate firstDayOf(int year) {
+        return LocalDate.of(year, Month.JANUARY, 1);
+    }
+
+    /**
+     * @param year un año.
+     * @return el 31 de diciembre de ese año.
+     */
+    private static LocalDate lastDayOf(int year) {
+        return LocalDate.of(year, Month.DECEMBER, 31);
+    }
+
+    /**
+     * Busca si hay alguna author con el id que se envía de argumento. Primero
+     * se consulta el {@link EmpresaCache} y solo si la empresa no está allí se
+     * va a la base de datos.
      *
      * @param authorsId: id correspondiente a la author buscada.
      * @return un author.
      */
     public EmpresaEntity find(Long authorsId) {
-        LOGGER.log(Level.INFO, "Consultando el autor con id={0}", authorsId);
+        LOGGER.log(Level.FINE, "Consultando el autor con id={0}", authorsId);
+        long generation = cache.getGeneration(authorsId);
+        EmpresaEntity cached = cache.get(authorsId);
+        if (cached != null) {
+            LatencySampledInterceptor.skipSample();
+            return cached;
+        }
         /* Note que se hace uso del metodo "find" propio del EntityManager, el cual recibe como argumento 
         el tipo de la clase y el objeto que nos hara el filtro en la base de datos en este caso el "id"
         Suponga que es algo similar a "select * from EmpresaEntity where id=id;" - "SELECT * FROM table_name WHERE condition;" en SQL.
          */
-        return em.find(EmpresaEntity.class, authorsId);
+        EmpresaEntity empresaEntity = em.find(EmpresaEntity.class, authorsId);
+        cache.put(empresaEntity, generation);
+        return empresaEntity;
+    }
+
+    /**
+     * Busca una empresa consultando solo algunos de sus atributos. Si la
+     * empresa completa está en el {@link EmpresaCache} se usa esa, sin ir a la
+     * base de datos; de lo contrario se consulta una proyección, que no se
+     * agrega al caché.
+     *
+     * @param authorsId id de la empresa.
+     * @param fields atributos que se consultan. Además siempre se consultan
+     * id, version y lastModified.
+     * @return la empresa, o null si no existe. Puede traer más atributos de los
+     * pedidos.
+     */
+    public EmpresaEntity find(Long authorsId, Set<EmpresaField> fields) {
+        LOGGER.log(Level.FINE, "Consultando una proyección de la empresa con id={0}", authorsId);
+        EmpresaEntity cached = cache.get(authorsId);
+        if (cached != null) {
+            LatencySampledInterceptor.skipSample();
+            return cached;
+        }
+        EmpresaField[] columns = columnsOf(fields);
+        List<Object[]> rows = em.createQuery(selectOf(columns) + " from EmpresaEntity u where u.id = :id", Object[].class)
+                .setParameter("id", authorsId)
+                .getResultList();
+        return rows.isEmpty() ? null : toEntity(columns, rows.get(0));
+    }
+
+    /**
+     * Consulta algunos atributos de una empresa y bloquea su fila hasta que
+     * termine la transacción, para conocer los valores que va a reemplazar una
+     * actualización sin que otra transacción los cambie antes. No usa el
+     * {@link EmpresaCache}.
+     *
+     * @param authorsId id de la empresa.
+     * @param fields atributos que se consultan. Además siempre se consultan
+     * id, version y lastModified.
+     * @return la empresa con esos atributos, o null si no existe.
+     */
+    public EmpresaEntity findForUpdate(Long authorsId, Set<EmpresaField> fields) {
+        LOGGER.log(Level.FINE, "Consultando y bloqueando la empresa con id={0}", authorsId);
+        EmpresaField[] columns = columnsOf(fields);
+        List<Object[]> rows = em.createQuery(selectOf(columns) + " from EmpresaEntity u where u.id = :id", Object[].class)
+                .setParameter("id", authorsId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        return rows.isEmpty() ? null : toEntity(columns, rows.get(0));
+    }
+
+    /**
+     * Cuenta las empresas de cada ciudad con un solo GROUP BY.
+     *
+     * @return el número de empresas por ciudad. La llave null cuenta las
+     * empresas sin ciudad.
+     */
+    public Map<String, Long> countByCiudad() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : em.createQuery("select u.ciudad, count(u) from EmpresaEntity u group by u.ciudad", Object[].class).getResultList()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Cuenta las empresas de cada fecha de creación con un solo GROUP BY. Se
+     * agrupa por la fecha y no por el año porque JPQL no tiene una función
+     * para extraer el año.
+     *
+     * @return el número de empresas por fecha de creación. La llave null
+     * cuenta las empresas sin fecha.
+     */
+    public Map<LocalDate, Long> countByAniocreacion() {
+        Map<LocalDate, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : em.createQuery("select u.aniocreacion, count(u) from EmpresaEntity u group by u.aniocreacion", Object[].class).getResultList()) {
+            counts.put((LocalDate) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * @param fields atributos pedidos.
+     * @return los atributos pedidos más los que siempre se consultan, en el
+     * orden de {@link EmpresaField}.
+     */
+    private static EmpresaField[] columnsOf(Set<EmpresaField> fields) {
+        EnumSet<EmpresaField> columns = EnumSet.copyOf(EmpresaField.REQUIRED);
+        columns.addAll(fields);
+        return columns.toArray(new EmpresaField[columns.size()]);
+    }
+
+    private static String selectOf(EmpresaField[] columns) {
+        StringBuilder select = new StringBuilder("select ");
+        for (int i = 0; i < columns.length; i++) {
+            select.append(i == 0 ? "u." : ", u.").append(columns[i].getAttribute());
+        }
+        return select.toString();
+    }
+
+    private static EmpresaEntity toEntity(EmpresaField[] columns, Object[] row) {
+        EmpresaEntity empresa = new EmpresaEntity();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(empresa, row[i]);
+        }
+        return empresa;
     }
 
     /**
@@ -101,14 +445,78 @@ public class EmpresaPersistence {
      * @return una author con los cambios aplicados.
      */
     public EmpresaEntity update(EmpresaEntity empresaEntity) {
-        LOGGER.log(Level.INFO, "Actualizando el author con id={0}", empresaEntity.getId());
+        LOGGER.log(Level.FINE, "Actualizando el author con id={0}", empresaEntity.getId());
         /* Note que hacemos uso de un método propio del EntityManager llamado merge() que recibe como argumento
         la author con los cambios, esto es similar a 
         "UPDATE table_name SET column1 = value1, column2 = value2, ... WHERE condition;" en SQL.
          */
+        cache.invalidate(empresaEntity.getId());
         return em.merge(empresaEntity);
     }
 
+    /**
+     * Actualiza una empresa con una sola sentencia UPDATE sobre su id. La
+     * sentencia también incrementa la versión y asigna la fecha de última
+     * modificación.
+     *
+     * Si values trae una versión, solo se actualiza la fila que tenga esa
+     * versión (control de concurrencia optimista) y, si además se escriben
+     * todas las columnas, la empresa que se devuelve es values con la versión
+     * siguiente, sin otra consulta.
+     *
+     * @param id id de la empresa a actualizar.
+     * @param values valores nuevos de la empresa.
+     * @param partial si es true solo se escriben las columnas cuyo valor en
+     * values no es null; si es false se escriben todas.
+     * @return la empresa con los cambios aplicados, o null si no se actualizó
+     * ninguna fila porque la empresa no existe o su versión no coincide.
+     */
+    public EmpresaEntity updateFields(Long id, EmpresaEntity values, boolean partial) {
+        LOGGER.log(Level.FINE, "Actualizando con un UPDATE la empresa con id={0}", id);
+        Date now = new Date();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        StringBuilder jpql = new StringBuilder("update EmpresaEntity u set u.version = u.version + 1, u.lastModified = :lastModified");
+        parameters.put("lastModified", now);
+        if (!partial || values.getEmpresa() != null) {
+            jpql.append(", u.empresa = :empresa");
+            parameters.put("empresa", values.getEmpresa());
+        }
+        if (!partial || values.getCiudad() != null) {
+            jpql.append(", u.ciudad = :ciudad");
+            parameters.put("ciudad", values.getCiudad());
+        }
+        if (!partial || values.getImage() != null) {
+            jpql.append(", u.image = :image");
+            parameters.put("image", values.getImage());
+        }
+        if (!partial || values.getAniocreacion() != null) {
+            jpql.append(", u.aniocreacion = :aniocreacion");
+            parameters.put("aniocreacion", values.getAniocreacion());
+        }
+        jpql.append(" where u.id = :id");
+        parameters.put("id", id);
+        if (values.getVersion() != null) {
+            jpql.append(" and u.version = :version");
+            parameters.put("version", values.getVersion());
+        }
+        Query query = em.createQuery(jpql.toString());
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        if (query.executeUpdate() == 0) {
+            return null;
+        }
+        cache.invalidate(id);
+        if (!partial && values.getVersion() != null) {
+            // Todos los valores de la fila son conocidos, así que no hace falta volver a consultarla.
+            values.setId(id);
+            values.setVersion(values.getVersion() + 1);
+            values.setLastModified(now);
+            return values;
+        }
+        return em.find(EmpresaEntity.class, id);
+    }
+
     /**
      * Borra una author de la base de datos recibiendo como argumento el id de
      * la author
@@ -117,12 +525,13 @@ public class EmpresaPersistence {
      */
     public void delete(Long authorsId) {
 
-        LOGGER.log(Level.INFO, "Borrando el author con id={0}", authorsId);
+        LOGGER.log(Level.FINE, "Borrando el author con id={0}", authorsId);
         // Se hace uso de mismo método que esta explicado en public EmpresaEntity find(Long id) para obtener la author a borrar.
         EmpresaEntity empresaEntity = em.find(EmpresaEntity.class, authorsId);
         /* Note que una vez obtenido el objeto desde la base de datos llamado "EmpresaEntity", volvemos hacer uso de un método propio del
         EntityManager para eliminar de la base de datos el objeto que encontramos y queremos borrar.
         Es similar a "delete from EmpresaEntity where id=id;" - "DELETE FROM table_name WHERE condition;" en SQL.*/
         em.remove(empresaEntity);
+        cache.invalidate(authorsId);
     }
 }
@@ -0,0 +1,73 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+import java.util.Date;
+
+/**
+ * Versión y fecha de última modificación de una empresa. Se consulta sin
+ * cargar la entidad completa para responder peticiones condicionales.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaVersion {
+
+    private final Long id;
+    private final long version;
+    private final Date lastModified;
+
+    /**
+     * Constructor usado por las consultas JPQL con <code>select new</code>.
+     *
+     * @param id id de la empresa.
+     * @param version versión de la empresa; null se toma como 0.
+     * @param lastModified fecha de última modificación, o null.
+     */
+    public EmpresaVersion(Long id, Long version, Date lastModified) {
+        this.id = id;
+        this.version = version == null ? 0L : version;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the id
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the lastModified
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+}
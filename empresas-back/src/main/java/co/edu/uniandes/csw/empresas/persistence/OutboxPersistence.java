@@ -0,0 +1,95 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+import co.edu.uniandes.csw.empresas.entities.OutboxEntity;
+import co.edu.uniandes.csw.empresas.metrics.Timed;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Persistencia de la tabla outbox ({@link OutboxEntity}).
+ *
+ * @author ISIS2603
+ */
+@Stateless
+@Timed
+public class OutboxPersistence {
+
+    private static final Logger LOGGER = Logger.getLogger(OutboxPersistence.class.getName());
+
+    @PersistenceContext(unitName = "DBParcialPU")
+    protected EntityManager em;
+
+    /**
+     * Guarda un cambio pendiente en la transacción actual.
+     *
+     * @param entry el cambio.
+     * @return el cambio con su id.
+     */
+    public OutboxEntity create(OutboxEntity entry) {
+        em.persist(entry);
+        return entry;
+    }
+
+    /**
+     * Consulta los cambios pendientes más viejos.
+     *
+     * @param limit número máximo de cambios.
+     * @return a lo sumo limit cambios, en el orden en que se escribieron.
+     */
+    public List<OutboxEntity> findBatch(int limit) {
+        return em.createQuery("select u from OutboxEntity u order by u.id", OutboxEntity.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Borra con una sola sentencia los cambios que ya se entregaron.
+     *
+     * @param ids ids de los cambios entregados.
+     * @return número de cambios borrados.
+     */
+    public int delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = em.createQuery("delete from OutboxEntity u where u.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        LOGGER.log(Level.FINE, "Borrados {0} cambios entregados del outbox", deleted);
+        return deleted;
+    }
+
+    /**
+     * @return número de cambios pendientes.
+     */
+    public long count() {
+        return em.createQuery("select count(u) from OutboxEntity u", Long.class).getSingleResult();
+    }
+}
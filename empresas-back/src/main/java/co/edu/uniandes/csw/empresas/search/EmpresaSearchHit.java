@@ -0,0 +1,82 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.search;
+
+/**
+ * Una empresa encontrada por {@link EmpresaSearchIndex}, con los datos que
+ * guarda el índice y su puntaje. Es inmutable.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaSearchHit {
+
+    private final Long id;
+
+    private final String empresa;
+
+    private final String ciudad;
+
+    private final double score;
+
+    /**
+     * @param id id de la empresa.
+     * @param empresa nombre de la empresa.
+     * @param ciudad ciudad de la empresa.
+     * @param score puntaje de la empresa para la búsqueda; mayor es mejor.
+     */
+    public EmpresaSearchHit(Long id, String empresa, String ciudad, double score) {
+        this.id = id;
+        this.empresa = empresa;
+        this.ciudad = ciudad;
+        this.score = score;
+    }
+
+    /**
+     * @return el id de la empresa.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return el nombre de la empresa.
+     */
+    public String getEmpresa() {
+        return empresa;
+    }
+
+    /**
+     * @return la ciudad de la empresa.
+     */
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    /**
+     * @return el puntaje de la empresa para la búsqueda; mayor es mejor.
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,459 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.search;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaField;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaPersistence;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * Índice invertido en memoria de los nombres y ciudades de las empresas, para
+ * buscarlas por nombres parciales o mal escritos sin consultar la base de
+ * datos.
+ *
+ * Cada texto se parte en trigramas ({@link Trigrams}) y el índice guarda, por
+ * cada trigrama, las empresas que lo tienen en el nombre y las que lo tienen
+ * en la ciudad. El puntaje de una empresa es el coeficiente de Dice entre los
+ * trigramas de la búsqueda y los de su nombre (o la mitad del de su ciudad, si
+ * es mayor), más 1 si el nombre contiene la búsqueda completa. Las empresas
+ * con un puntaje menor que <code>empresas.search.minScore</code> (0.3 por
+ * defecto) no se devuelven.
+ *
+ * El índice se construye al desplegar la aplicación leyendo solo el nombre y
+ * la ciudad de todas las empresas, y se actualiza con los
+ * {@link EmpresaEvent} de las transacciones que terminaron bien. Las
+ * búsquedas comparten un candado de lectura; las actualizaciones toman el de
+ * escritura.
+ *
+ * @author ISIS2603
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class EmpresaSearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaSearchIndex.class.getName());
+
+    static final double MIN_SCORE = Double.parseDouble(System.getProperty("empresas.search.minScore", "0.3"));
+
+    /**
+     * Peso de la ciudad frente al nombre.
+     */
+    static final double CIUDAD_WEIGHT = 0.5;
+
+    /**
+     * Empresas que se leen por consulta al construir el índice.
+     */
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private static final Set<EmpresaField> INDEXED_FIELDS = EnumSet.of(EmpresaField.EMPRESA, EmpresaField.CIUDAD);
+
+    /**
+     * Orden de los resultados: mayor puntaje primero y, con el mismo puntaje,
+     * menor id primero.
+     */
+    private static final Comparator<EmpresaSearchHit> RANKING = Comparator.comparingDouble(EmpresaSearchHit::getScore).reversed()
+            .thenComparing(EmpresaSearchHit::getId);
+
+    @Inject
+    private EmpresaPersistence persistence;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Empresas por posición. Las listas de trigramas guardan posiciones y no
+     * ids, para contar coincidencias en arreglos sin crear objetos.
+     */
+    private final List<Document> slots = new ArrayList<>();
+
+    /**
+     * Posiciones libres de {@link #slots}, de empresas que se quitaron.
+     */
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+
+    /**
+     * Posiciones de las empresas por trigrama del nombre.
+     */
+    private final Map<String, Posting> empresaPostings = new HashMap<>();
+
+    /**
+     * Posiciones de las empresas por trigrama de la ciudad.
+     */
+    private final Map<String, Posting> ciudadPostings = new HashMap<>();
+
+    /**
+     * Arreglos de conteo libres. Cada búsqueda toma uno, lo limpia recorriendo
+     * solo las posiciones que tocó y lo devuelve, así que no se reservan
+     * arreglos del tamaño del índice en cada búsqueda.
+     */
+    private final Queue<Scratch> scratches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Construye el índice con todas las empresas de la base de datos.
+     */
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        Long afterId = null;
+        List<EmpresaEntity> chunk;
+        do {
+            chunk = persistence.findPage(null, afterId, LOAD_CHUNK_SIZE, INDEXED_FIELDS);
+            for (EmpresaEntity empresa : chunk) {
+                put(empresa);
+                afterId = empresa.getId();
+            }
+        } while (chunk.size() == LOAD_CHUNK_SIZE);
+        LOGGER.log(Level.INFO, "Índice de búsqueda con {0} empresas construido en {1} ms",
+                new Object[]{size(), (System.nanoTime() - start) / 1_000_000});
+    }
+
+    /**
+     * Actualiza el índice con un cambio que llegó a la base de datos.
+     *
+     * @param event el cambio.
+     */
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EmpresaEvent event) {
+        if (event.getType() == EmpresaEvent.Type.DELETE) {
+            remove(event.getEmpresaId());
+        } else {
+            put(event.getEmpresa());
+        }
+    }
+
+    /**
+     * Agrega una empresa al índice o reemplaza la que tenga su id.
+     *
+     * @param empresa empresa con id, nombre y ciudad.
+     */
+    public void put(EmpresaEntity empresa) {
+        Document document = new Document(empresa.getId(), empresa.getEmpresa(), empresa.getCiudad());
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.get(document.id);
+            Document old = null;
+            if (slot != null) {
+                old = slots.set(slot, document);
+            } else {
+                slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+                slotOf.put(document.id, slot);
+                if (slot == slots.size()) {
+                    slots.add(document);
+                } else {
+                    slots.set(slot, document);
+                }
+            }
+            // Casi todas las actualizaciones no cambian el nombre ni la ciudad: solo se tocan los trigramas que cambiaron.
+            reindex(empresaPostings, old == null ? Collections.<String>emptySet() : old.empresaGrams, document.empresaGrams, slot);
+            reindex(ciudadPostings, old == null ? Collections.<String>emptySet() : old.ciudadGrams, document.ciudadGrams, slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una empresa del índice.
+     *
+     * @param id id de la empresa.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.remove(id);
+            if (slot != null) {
+                Document old = slots.set(slot, null);
+                reindex(empresaPostings, old.empresaGrams, Collections.<String>emptySet(), slot);
+                reindex(ciudadPostings, old.ciudadGrams, Collections.<String>emptySet(), slot);
+                freeSlots.push(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita la posición de los trigramas viejos que no están en los nuevos y
+     * la agrega a los nuevos que no estaban en los viejos.
+     */
+    private static void reindex(Map<String, Posting> postings, Set<String> oldGrams, Set<String> newGrams, int slot) {
+        for (String gram : oldGrams) {
+            if (newGrams.contains(gram)) {
+                continue;
+            }
+            Posting posting = postings.get(gram);
+            if (posting != null && posting.remove(slot) && posting.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        for (String gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                postings.computeIfAbsent(gram, k -> new Posting()).add(slot);
+            }
+        }
+    }
+
+    /**
+     * Busca empresas por nombre o ciudad.
+     *
+     * @param query texto a buscar; no distingue mayúsculas ni tildes.
+     * @param offset número de resultados que se saltan.
+     * @param limit número máximo de resultados.
+     * @return la página de resultados, de mayor a menor puntaje.
+     */
+    public EmpresaSearchResult search(String query, int offset, int limit) {
+        String normalized = Trigrams.normalize(query);
+        Set<String> grams = Trigrams.of(normalized);
+        if (grams.isEmpty() || limit <= 0) {
+            return new EmpresaSearchResult(0, Collections.<EmpresaSearchHit>emptyList());
+        }
+        int innerGrams = Trigrams.countInner(grams);
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        // Montículo con los mejores resultados vistos; la raíz es el peor de ellos.
+        PriorityQueue<EmpresaSearchHit> best = new PriorityQueue<>(Math.min(wanted, 1024) + 1, RANKING.reversed());
+        int total = 0;
+        Scratch scratch = scratches.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        // Queda en -1 si los conteos fallan a medias; ese arreglo no se reutiliza.
+        int touchedCount = -1;
+        lock.readLock().lock();
+        try {
+            scratch.ensureCapacity(slots.size());
+            int[] empresaMatches = scratch.empresaMatches;
+            int[] ciudadMatches = scratch.ciudadMatches;
+            int[] touched = scratch.touched;
+            int empresaCount = count(empresaPostings, grams, empresaMatches, ciudadMatches, touched, 0);
+            touchedCount = count(ciudadPostings, grams, ciudadMatches, empresaMatches, touched, empresaCount);
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                Document document = slots.get(slot);
+                double score = document.score(normalized, grams.size(), innerGrams, empresaMatches[slot], ciudadMatches[slot]);
+                if (score < MIN_SCORE) {
+                    continue;
+                }
+                total++;
+                if (best.size() < wanted) {
+                    best.add(new EmpresaSearchHit(document.id, document.empresa, document.ciudad, score));
+                } else if (score > best.peek().getScore() || score == best.peek().getScore() && document.id < best.peek().getId()) {
+                    best.poll();
+                    best.add(new EmpresaSearchHit(document.id, document.empresa, document.ciudad, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+            if (touchedCount >= 0) {
+                scratch.clear(touchedCount);
+                scratches.offer(scratch);
+            }
+        }
+        List<EmpresaSearchHit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return new EmpresaSearchResult(total, offset >= hits.size() ? Collections.<EmpresaSearchHit>emptyList() : hits.subList(offset, hits.size()));
+    }
+
+    /**
+     * Cuenta los trigramas de la búsqueda que tiene cada posición y anota en
+     * touched las posiciones que aparecen por primera vez.
+     *
+     * @return el nuevo número de posiciones en touched.
+     */
+    private static int count(Map<String, Posting> postings, Set<String> grams, int[] matches, int[] otherMatches, int[] touched, int touchedCount) {
+        for (String gram : grams) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                int slot = posting.slots[i];
+                if (matches[slot]++ == 0 && otherMatches[slot] == 0) {
+                    touched[touchedCount++] = slot;
+                }
+            }
+        }
+        return touchedCount;
+    }
+
+    /**
+     * @return número de empresas en el índice.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Arreglos de conteo de una búsqueda, indexados por posición. Fuera de una
+     * búsqueda todos sus conteos están en cero.
+     */
+    private static final class Scratch {
+
+        private int[] empresaMatches = new int[0];
+
+        private int[] ciudadMatches = new int[0];
+
+        private int[] touched = new int[0];
+
+        /**
+         * Agranda los arreglos si el índice creció, con un margen para no
+         * hacerlo en cada empresa nueva.
+         */
+        void ensureCapacity(int capacity) {
+            if (empresaMatches.length < capacity) {
+                int length = capacity + (capacity >> 2);
+                empresaMatches = new int[length];
+                ciudadMatches = new int[length];
+                touched = new int[length];
+            }
+        }
+
+        /**
+         * Pone en cero los conteos de las posiciones que tocó la búsqueda.
+         */
+        void clear(int touchedCount) {
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                empresaMatches[slot] = 0;
+                ciudadMatches[slot] = 0;
+            }
+        }
+    }
+
+    /**
+     * Posiciones ordenadas de las empresas que tienen un trigrama.
+     */
+    private static final class Posting {
+
+        private int[] slots = new int[4];
+
+        private int size;
+
+        void add(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, i, slots, i + 1, size - i);
+            slots[i] = slot;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Datos de una empresa en el índice.
+     */
+    private static final class Document {
+
+        private final Long id;
+
+        private final String empresa;
+
+        private final String ciudad;
+
+        private final String normalizedEmpresa;
+
+        private final Set<String> empresaGrams;
+
+        private final Set<String> ciudadGrams;
+
+        Document(Long id, String empresa, String ciudad) {
+            this.id = id;
+            this.empresa = empresa;
+            this.ciudad = ciudad;
+            this.normalizedEmpresa = Trigrams.normalize(empresa);
+            this.empresaGrams = Trigrams.of(normalizedEmpresa);
+            this.ciudadGrams = Trigrams.of(Trigrams.normalize(ciudad));
+        }
+
+        /**
+         * @param query búsqueda normalizada.
+         * @param queryGrams número de trigramas de la búsqueda.
+         * @param innerGrams número de trigramas de la búsqueda sin espacios.
+         * @param empresaMatches trigramas en común con el nombre.
+         * @param ciudadMatches trigramas en común con la ciudad.
+         * @return el puntaje de la empresa.
+         */
+        double score(String query, int queryGrams, int innerGrams, int empresaMatches, int ciudadMatches) {
+            double score = Math.max(dice(empresaMatches, queryGrams, empresaGrams.size()),
+                    CIUDAD_WEIGHT * dice(ciudadMatches, queryGrams, ciudadGrams.size()));
+            // Si el nombre contiene la búsqueda, tiene al menos todos sus trigramas sin espacios.
+            if (empresaMatches >= innerGrams && normalizedEmpresa.contains(query)) {
+                score += 1.0;
+            }
+            return score;
+        }
+
+        private static double dice(int common, int a, int b) {
+            return common == 0 ? 0.0 : 2.0 * common / (a + b);
+        }
+    }
+}
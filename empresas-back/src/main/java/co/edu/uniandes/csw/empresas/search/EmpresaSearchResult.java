@@ -0,0 +1,63 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.search;
+
+import java.util.List;
+
+/**
+ * Una página de resultados de {@link EmpresaSearchIndex}.
+ *
+ * @author ISIS2603
+ */
+public class EmpresaSearchResult {
+
+    private final int total;
+
+    private final List<EmpresaSearchHit> hits;
+
+    /**
+     * @param total número de empresas que coinciden con la búsqueda.
+     * @param hits las empresas de la página, de mayor a menor puntaje.
+     */
+    public EmpresaSearchResult(int total, List<EmpresaSearchHit> hits) {
+        this.total = total;
+        this.hits = hits;
+    }
+
+    /**
+     * @return el número de empresas que coinciden con la búsqueda, en todas
+     * las páginas.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return las empresas de la página, de mayor a menor puntaje y, con el
+     * mismo puntaje, por id.
+     */
+    public List<EmpresaSearchHit> getHits() {
+        return hits;
+    }
+}
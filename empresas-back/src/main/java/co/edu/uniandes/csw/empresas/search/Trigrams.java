@@ -0,0 +1,109 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Normalización de textos y trigramas para {@link EmpresaSearchIndex}.
+ *
+ * Un texto se normaliza quitando tildes, pasándolo a minúsculas y cambiando
+ * todo lo que no sea letra o dígito por un espacio. Cada palabra se rellena
+ * con dos espacios al inicio y uno al final, como hace pg_trgm, para que las
+ * palabras cortas y los comienzos de palabra también produzcan trigramas.
+ *
+ * @author ISIS2603
+ */
+final class Trigrams {
+
+    private Trigrams() {
+    }
+
+    /**
+     * @param text texto a normalizar, o null.
+     * @return el texto sin tildes, en minúsculas y con las palabras separadas
+     * por un solo espacio; vacío si el texto es null.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param normalized texto ya normalizado con {@link #normalize(String)}.
+     * @return los trigramas distintos del texto, en orden de aparición.
+     */
+    static Set<String> of(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return grams;
+        }
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * @param grams trigramas de {@link #of(String)}.
+     * @return número de trigramas que no tienen espacios, es decir, que no
+     * están en el borde de una palabra.
+     */
+    static int countInner(Set<String> grams) {
+        int inner = 0;
+        for (String gram : grams) {
+            if (gram.indexOf(' ') < 0) {
+                inner++;
+            }
+        }
+        return inner;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.stats;
+
+import co.edu.uniandes.csw.empresas.ejb.EmpresaEvent;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import co.edu.uniandes.csw.empresas.persistence.EmpresaPersistence;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * Conteos de empresas por ciudad y por año de creación, mantenidos en
+ * memoria para no recorrer la tabla cada vez que se piden.
+ *
+ * Los conteos se cargan al desplegar la aplicación con dos consultas GROUP BY
+ * de {@link EmpresaPersistence} y luego se actualizan con los
+ * {@link EmpresaEvent} de las transacciones que terminaron bien. Cada conteo
+ * es un {@link LongAdder} en un {@link ConcurrentHashMap}: las actualizaciones
+ * no usan candados y las consultas solo suman los contadores. Una consulta que
+ * coincide con una actualización puede ver una ciudad ya contada y la otra
+ * todavía no.
+ *
+ * @author ISIS2603
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class EmpresaStats {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaStats.class.getName());
+
+    @Inject
+    private EmpresaPersistence persistence;
+
+    private final LongAdder total = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> byCiudad = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, LongAdder> byAnio = new ConcurrentHashMap<>();
+
+    /**
+     * Empresas sin ciudad; {@link ConcurrentHashMap} no acepta llaves null.
+     */
+    private final LongAdder withoutCiudad = new LongAdder();
+
+    /**
+     * Empresas sin fecha de creación.
+     */
+    private final LongAdder withoutAnio = new LongAdder();
+
+    /**
+     * Carga los conteos de la base de datos.
+     */
+    @PostConstruct
+    public void load() {
+        for (Map.Entry<String, Long> count : persistence.countByCiudad().entrySet()) {
+            ciudadCounter(count.getKey()).add(count.getValue());
+            total.add(count.getValue());
+        }
+        for (Map.Entry<LocalDate, Long> count : persistence.countByAniocreacion().entrySet()) {
+            anioCounter(count.getKey()).add(count.getValue());
+        }
+        LOGGER.log(Level.INFO, "Estadísticas de {0} empresas en {1} ciudades cargadas", new Object[]{total.sum(), byCiudad.size()});
+    }
+
+    /**
+     * Actualiza los conteos con un cambio que llegó a la base de datos.
+     *
+     * @param event el cambio.
+     */
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EmpresaEvent event) {
+        switch (event.getType()) {
+            case CREATE:
+                add(event.getEmpresa(), 1);
+                break;
+            case DELETE:
+                add(event.getEmpresa(), -1);
+                break;
+            default:
+                if (event.getPrevious() != null) {
+                    add(event.getPrevious(), -1);
+                    add(event.getEmpresa(), 1);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Suma delta a los conteos de la ciudad y el año de una empresa.
+     *
+     * @param empresa empresa con ciudad y fecha de creación.
+     * @param delta 1 si la empresa se agrega, -1 si se quita.
+     */
+    public void add(EmpresaEntity empresa, int delta) {
+        total.add(delta);
+        ciudadCounter(empresa.getCiudad()).add(delta);
+        anioCounter(empresa.getAniocreacion()).add(delta);
+    }
+
+    private LongAdder ciudadCounter(String ciudad) {
+        return ciudad == null ? withoutCiudad : byCiudad.computeIfAbsent(ciudad, k -> new LongAdder());
+    }
+
+    private LongAdder anioCounter(LocalDate aniocreacion) {
+        return aniocreacion == null ? withoutAnio : byAnio.computeIfAbsent(aniocreacion.getYear(), k -> new LongAdder());
+    }
+
+    /**
+     * @return el número total de empresas.
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return el número de empresas por ciudad, en orden alfabético, sin las
+     * ciudades que ya no tienen empresas.
+     */
+    public SortedMap<String, Long> getByCiudad() {
+        return snapshot(byCiudad);
+    }
+
+    /**
+     * @return el número de empresas por año de creación, en orden, sin los
+     * años que ya no tienen empresas.
+     */
+    public SortedMap<Integer, Long> getByAnio() {
+        return snapshot(byAnio);
+    }
+
+    /**
+     * @return el número de empresas sin ciudad.
+     */
+    public long getWithoutCiudad() {
+        return withoutCiudad.sum();
+    }
+
+    /**
+     * @return el número de empresas sin fecha de creación.
+     */
+    public long getWithoutAnio() {
+        return withoutAnio.sum();
+    }
+
+    /**
+     * Agrupa los conteos por año en intervalos del mismo ancho.
+     *
+     * @param width número de años de cada intervalo; debe ser positivo.
+     * @return el número de empresas por intervalo, con el primer año del
+     * intervalo como llave. Los intervalos empiezan en múltiplos de width.
+     */
+    public SortedMap<Integer, Long> getHistogram(int width) {
+        SortedMap<Integer, Long> histogram = new TreeMap<>();
+        for (Map.Entry<Integer, Long> count : getByAnio().entrySet()) {
+            histogram.merge(Math.floorDiv(count.getKey(), width) * width, count.getValue(), Long::sum);
+        }
+        return histogram;
+    }
+
+    private static <K extends Comparable<K>> SortedMap<K, Long> snapshot(ConcurrentMap<K, LongAdder> counters) {
+        SortedMap<K, Long> counts = new TreeMap<>();
+        for (Map.Entry<K, LongAdder> counter : counters.entrySet()) {
+            long count = counter.getValue().sum();
+            if (count > 0) {
+                counts.put(counter.getKey(), count);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.adapters;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la conversión de fechas de {@link DateAdapter} y la compara con
+ * {@link LocalDate#parse(CharSequence)} y {@link LocalDate#toString()}.
+ *
+ * Antes de medir se comprueba que todas las fechas de 1900 a 2100 se leen y se
+ * escriben igual que con java.time, para que el benchmark no mida un
+ * convertidor incorrecto.
+ *
+ * @author ISIS2603
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateAdapterBenchmark {
+
+    private DateAdapter adapter;
+
+    private LocalDate date;
+
+    private String text;
+
+    @Setup
+    public void setup() throws Exception {
+        adapter = new DateAdapter();
+        for (LocalDate d = LocalDate.of(1900, 1, 1); d.getYear() <= 2100; d = d.plusDays(1)) {
+            String formatted = adapter.marshal(d);
+            if (!formatted.equals(d.toString()) || !adapter.unmarshal(formatted).equals(d)) {
+                throw new IllegalStateException("DateAdapter no convierte bien la fecha " + d);
+            }
+        }
+        date = LocalDate.of(1975, 3, 9);
+        text = adapter.marshal(date);
+    }
+
+    @Benchmark
+    public String marshal() throws Exception {
+        return adapter.marshal(date);
+    }
+
+    @Benchmark
+    public LocalDate unmarshal() throws Exception {
+        return adapter.unmarshal(text);
+    }
+
+    @Benchmark
+    public String marshalJavaTime() {
+        return date.toString();
+    }
+
+    @Benchmark
+    public LocalDate unmarshalJavaTime() {
+        return LocalDate.parse(text);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Crea la unidad de persistencia DBParcialPU fuera del servidor de
+ * aplicaciones, sobre una base Derby embebida en memoria.
+ *
+ * Se usa la misma unidad que en producción, cambiando solo el tipo de
+ * transacción y la conexión, para que los benchmarks midan los mismos mapeos y
+ * consultas.
+ *
+ * @author ISIS2603
+ */
+public final class DerbyPersistenceUnit {
+
+    private DerbyPersistenceUnit() {
+    }
+
+    /**
+     * Crea la fábrica de EntityManager sobre una base en memoria nueva.
+     *
+     * @param database nombre de la base en memoria.
+     * @return la fábrica de EntityManager.
+     */
+    public static EntityManagerFactory create(String database) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("javax.persistence.transactionType", "RESOURCE_LOCAL");
+        properties.put("javax.persistence.jtaDataSource", "");
+        properties.put("javax.persistence.jdbc.driver", "org.apache.derby.jdbc.EmbeddedDriver");
+        properties.put("javax.persistence.jdbc.url", "jdbc:derby:memory:" + database + ";create=true");
+        properties.put("javax.persistence.jdbc.user", "APP");
+        properties.put("javax.persistence.jdbc.password", "APP");
+        properties.put("eclipselink.logging.level", "WARNING");
+        return Persistence.createEntityManagerFactory("DBParcialPU", properties);
+    }
+}
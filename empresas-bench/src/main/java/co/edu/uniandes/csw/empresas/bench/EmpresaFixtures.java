@@ -0,0 +1,76 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.bench;
+
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba para los benchmarks. Los datos son deterministas para que
+ * las mediciones de distintas ejecuciones sean comparables.
+ *
+ * @author ISIS2603
+ */
+public final class EmpresaFixtures {
+
+    private static final String[] CIUDADES = {"Bogotá", "Medellín", "Cali", "Barranquilla", "Cartagena", "Lautoka", "Nantes", "Lomba"};
+
+    private EmpresaFixtures() {
+    }
+
+    /**
+     * Crea una empresa con datos parecidos a los de producción.
+     *
+     * @param i número de la empresa; si id es true también se usa como id.
+     * @param id indica si la empresa debe tener id.
+     * @return la empresa creada.
+     */
+    public static EmpresaEntity empresa(long i, boolean id) {
+        EmpresaEntity entity = new EmpresaEntity();
+        if (id) {
+            entity.setId(i);
+        }
+        entity.setEmpresa("Empresa de prueba número " + i + " S.A.S.");
+        entity.setCiudad(CIUDADES[(int) (i % CIUDADES.length)]);
+        entity.setImage("https://images.pexels.com/photos/" + (1000000 + i) + "/pexels-photo-" + (1000000 + i) + ".jpeg?auto=compress&cs=tinysrgb&h=350");
+        entity.setAniocreacion(LocalDate.of((int) (1950 + i % 70), (int) (1 + i % 12), (int) (1 + i % 28)));
+        return entity;
+    }
+
+    /**
+     * Crea una lista de empresas con ids de 1 a size.
+     *
+     * @param size número de empresas.
+     * @return la lista de empresas.
+     */
+    public static List<EmpresaEntity> empresas(int size) {
+        List<EmpresaEntity> list = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            list.add(empresa(i, true));
+        }
+        return list;
+    }
+}
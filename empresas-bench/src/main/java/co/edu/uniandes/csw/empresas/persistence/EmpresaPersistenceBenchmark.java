@@ -0,0 +1,126 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.persistence;
+
+import co.edu.uniandes.csw.empresas.bench.DerbyPersistenceUnit;
+import co.edu.uniandes.csw.empresas.bench.EmpresaFixtures;
+import co.edu.uniandes.csw.empresas.cache.EmpresaCache;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las consultas de {@link EmpresaPersistence} contra Derby embebido.
+ *
+ * El caché de empresas se crea deshabilitado para medir siempre la consulta a
+ * la base de datos, y el contexto de persistencia se limpia en cada operación
+ * para que no responda desde memoria.
+ *
+ * @author ISIS2603
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmpresaPersistenceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private EntityManagerFactory emf;
+
+    private EmpresaPersistence persistence;
+
+    private long[] ids;
+
+    @Setup
+    public void setup() {
+        emf = DerbyPersistenceUnit.create("empresas" + rows);
+        persistence = new EmpresaPersistence();
+        persistence.em = emf.createEntityManager();
+        persistence.cache = new EmpresaCache(0, 0);
+
+        List<EmpresaEntity> empresas = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            empresas.add(EmpresaFixtures.empresa(i, false));
+        }
+        persistence.em.getTransaction().begin();
+        persistence.createAll(empresas, 100);
+        persistence.em.getTransaction().commit();
+        ids = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = empresas.get(i).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        persistence.em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public EmpresaEntity findById() {
+        persistence.em.clear();
+        return persistence.find(ids[ThreadLocalRandom.current().nextInt(rows)]);
+    }
+
+    @Benchmark
+    public List<EmpresaEntity> findFirstPage() {
+        persistence.em.clear();
+        return persistence.findPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<EmpresaEntity> findMiddlePage() {
+        persistence.em.clear();
+        return persistence.findPage(ids[rows / 2], PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<EmpresaEntity> findAll() {
+        persistence.em.clear();
+        return persistence.findAll();
+    }
+}
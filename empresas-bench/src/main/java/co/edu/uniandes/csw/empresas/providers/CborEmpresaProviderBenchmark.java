@@ -0,0 +1,129 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.providers;
+
+import co.edu.uniandes.csw.empresas.bench.EmpresaFixtures;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.GenericType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara {@link CborEmpresaProvider} con MOXy, el proveedor JSON que usa
+ * Payara, al escribir y leer una lista de {@link EmpresaDTO}.
+ *
+ * @author ISIS2603
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CborEmpresaProviderBenchmark {
+
+    private static final Type LIST_TYPE = new GenericType<List<EmpresaDTO>>() {
+    }.getType();
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private JAXBContext context;
+
+    private CborEmpresaProvider provider;
+
+    private List<EmpresaDTO> dtos;
+
+    private byte[] json;
+
+    private byte[] cbor;
+
+    @Setup
+    public void setup() throws JAXBException, IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(MarshallerProperties.MEDIA_TYPE, "application/json");
+        properties.put(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        context = JAXBContextFactory.createContext(new Class<?>[]{EmpresaDTO.class}, properties);
+        provider = new CborEmpresaProvider();
+        dtos = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            dtos.add(new EmpresaDTO(EmpresaFixtures.empresa(i, true)));
+        }
+        json = writeJson();
+        cbor = writeCbor();
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws JAXBException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 256);
+        context.createMarshaller().marshal(dtos, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeCbor() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 256);
+        provider.writeTo(dtos, ArrayList.class, LIST_TYPE, null, CborEmpresaProvider.APPLICATION_CBOR_TYPE, null, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object readJson() throws JAXBException {
+        Unmarshaller unmarshaller = context.createUnmarshaller();
+        unmarshaller.setProperty(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+        unmarshaller.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, false);
+        return unmarshaller.unmarshal(new StreamSource(new ByteArrayInputStream(json)), EmpresaDTO.class);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object readCbor() throws IOException {
+        return provider.readFrom((Class) List.class, LIST_TYPE, null, CborEmpresaProvider.APPLICATION_CBOR_TYPE, null, new ByteArrayInputStream(cbor));
+    }
+}
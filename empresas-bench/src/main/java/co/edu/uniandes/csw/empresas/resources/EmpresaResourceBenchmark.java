@@ -0,0 +1,105 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.resources;
+
+import co.edu.uniandes.csw.empresas.bench.EmpresaFixtures;
+import co.edu.uniandes.csw.empresas.dtos.EmpresaDTO;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el trabajo que hace {@link EmpresaResource} sobre una lista de
+ * empresas ya consultada: la conversión a DTO y el log de la salida.
+ *
+ * Los benchmarks de log comparan la forma anterior de gets(), que construía
+ * listas.toString() con reflectionToString aunque el log estuviera
+ * deshabilitado, con la actual, que solo pasa el tamaño de la lista. Para ver
+ * la memoria asignada por operación se ejecuta con <code>-prof gc</code>.
+ *
+ * @author ISIS2603
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmpresaResourceBenchmark {
+
+    private static final Logger LOGGER = Logger.getLogger(EmpresaResourceBenchmark.class.getName());
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private EmpresaResource resource;
+
+    private List<EmpresaEntity> entities;
+
+    private List<EmpresaDTO> dtos;
+
+    @Setup
+    public void setup() {
+        resource = new EmpresaResource();
+        entities = EmpresaFixtures.empresas(size);
+        dtos = resource.listEntity2DTO(entities);
+    }
+
+    @Benchmark
+    public List<EmpresaDTO> listEntity2DTO() {
+        return resource.listEntity2DTO(entities);
+    }
+
+    @Benchmark
+    public String eagerReflectionLog() {
+        StringBuilder sb = new StringBuilder("[");
+        for (EmpresaDTO dto : dtos) {
+            sb.append(ToStringBuilder.reflectionToString(dto, ToStringStyle.MULTI_LINE_STYLE)).append(", ");
+        }
+        String output = sb.append(']').toString();
+        LOGGER.log(Level.FINE, "Resource gets: output: {0}", output);
+        return output;
+    }
+
+    @Benchmark
+    public List<EmpresaDTO> lazyLog() {
+        LOGGER.log(Level.FINE, "Resource gets: output: {0} empresas", dtos.size());
+        return dtos;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+MIT License
+
+Copyright (c) 2017 Universidad de los Andes - ISIS2603
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package co.edu.uniandes.csw.empresas.search;
+
+import co.edu.uniandes.csw.empresas.bench.EmpresaFixtures;
+import co.edu.uniandes.csw.empresas.entities.EmpresaEntity;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las búsquedas y las actualizaciones de {@link EmpresaSearchIndex}.
+ *
+ * Los nombres de {@link EmpresaFixtures} solo difieren en el número, así que
+ * casi todas las empresas comparten trigramas con la búsqueda: es el peor caso
+ * del índice.
+ *
+ * @author ISIS2603
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmpresaSearchIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private EmpresaSearchIndex index;
+
+    private EmpresaEntity updated;
+
+    @Setup
+    public void setup() {
+        index = new EmpresaSearchIndex();
+        for (EmpresaEntity empresa : EmpresaFixtures.empresas(size)) {
+            index.put(empresa);
+        }
+        updated = EmpresaFixtures.empresa(size / 2, true);
+    }
+
+    @Benchmark
+    public EmpresaSearchResult searchMisspelledName() {
+        return index.search("prueva numero 421", 0, 50);
+    }
+
+    @Benchmark
+    public EmpresaSearchResult searchCiudad() {
+        return index.search("medelin", 0, 50);
+    }
+
+    @Benchmark
+    public void update() {
+        index.put(updated);
+    }
+}